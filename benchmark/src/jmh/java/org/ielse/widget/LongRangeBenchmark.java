@@ -0,0 +1,31 @@
+package org.ielse.widget;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Per-move math of the 64-bit mode: one week of epoch milliseconds on a 1080px line.
+ */
+@State(Scope.Thread)
+public class LongRangeBenchmark {
+
+    private static final long START = 1500000000000L;
+
+    private LongRange mRange;
+    private long mRightIndex;
+    private int mPx;
+
+    @Setup
+    public void setup() {
+        mRange = new LongRange(START, START + 7L * 24 * 3600 * 1000, 1, 3600 * 1000);
+        mRightIndex = mRange.getSteps() / 2;
+    }
+
+    @Benchmark
+    public long dragLeft() {
+        mPx = (mPx + 7) % 1081;
+        return mRange.valueAt(mRange.clampLeft(LongRange.indexAt(mPx, 1080, mRange.getSteps()), mRightIndex));
+    }
+}
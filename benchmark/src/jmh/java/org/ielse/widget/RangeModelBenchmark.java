@@ -0,0 +1,66 @@
+package org.ielse.widget;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Value math behind setRules, setValue and ACTION_MOVE. cells = 1 is the continuous mode. getCurrentRange
+ * reads the view's thumbs and is measured on a device, see RangeSeekBarBenchmark#testGetCurrentRange.
+ */
+@State(Scope.Thread)
+public class RangeModelBenchmark {
+
+    @Param({"1", "10", "1000", "100000"})
+    public int cells;
+
+    private RangeModel mModel;
+    private RangeModel mReserveModel;
+    private float mLeftPercent;
+    private float mRightPercent;
+    private int mStep;
+
+    @Setup
+    public void setup() {
+        mModel = new RangeModel(0, 100000, 0, cells);
+        // half of the range reserved, most moves end up pushing against the other seek bar
+        mReserveModel = new RangeModel(0, 100000, 50000, cells);
+        mLeftPercent = 0.25f;
+        mRightPercent = 0.75f;
+    }
+
+    private float nextTouchPercent() {
+        mStep = (mStep + 1) & 1023;
+        return mStep / 1023f;
+    }
+
+    @Benchmark
+    public float dragLeft() {
+        mLeftPercent = mModel.constrainLeft(nextTouchPercent(), mRightPercent);
+        return mLeftPercent;
+    }
+
+    @Benchmark
+    public float dragRight() {
+        mRightPercent = mModel.constrainRight(nextTouchPercent(), mLeftPercent);
+        return mRightPercent;
+    }
+
+    @Benchmark
+    public float reserveConstrainedDrag() {
+        return mReserveModel.constrainLeft(nextTouchPercent(), 0.6f)
+                + mReserveModel.constrainRight(nextTouchPercent(), 0.4f);
+    }
+
+    @Benchmark
+    public float setValue() {
+        return mModel.percentOf(20000) + mModel.percentOf(80000);
+    }
+
+    @Benchmark
+    public RangeModel setRules() {
+        return new RangeModel(0, 100000, 20, cells);
+    }
+}
@@ -0,0 +1,36 @@
+package org.ielse.widget;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Per-move value mapping of a $0 to $1M log scale on a 1080px line: lookup table against direct calls.
+ */
+@State(Scope.Thread)
+public class ScaleBenchmark {
+
+    private RangeScale mScale;
+    private ScaleTable mTable;
+    private int mPx;
+
+    @Setup
+    public void setup() {
+        mScale = RangeScale.log();
+        mTable = new ScaleTable();
+        mTable.build(mScale, 0, 1000000, 1081);
+    }
+
+    @Benchmark
+    public float table() {
+        mPx = (mPx + 7) % 1081;
+        return mTable.valueAt(mPx / 1080f);
+    }
+
+    @Benchmark
+    public double direct() {
+        mPx = (mPx + 7) % 1081;
+        return mScale.valueAt(mPx / 1080.0, 0, 1000000);
+    }
+}
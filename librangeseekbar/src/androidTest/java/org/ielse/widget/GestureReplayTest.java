@@ -0,0 +1,108 @@
+package org.ielse.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Debug;
+import android.test.InstrumentationTestCase;
+import android.util.Log;
+import android.view.MotionEvent;
+import android.view.View;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Replays stored gesture traces through onTouchEvent() and draw() into an offscreen bitmap on the main
+ * thread, failing when a drag gets slower or starts allocating. Traces live in
+ * src/androidTest/resources/org/ielse/widget/traces, see {@link GestureTrace}.
+ */
+public class GestureReplayTest extends InstrumentationTestCase {
+
+    private static final String TAG = "GestureReplayTest";
+    // touch handling plus a full draw of one event, a quarter of a 60fps frame
+    private static final long EVENT_TIME_BUDGET_NANOS = 4000000;
+    private static final float EVENT_TIME_PERCENTILE = 0.99f;
+    // per replay of ~10000 events: room for one-off framework allocations on down and up, while a single
+    // allocation per event would already take more than 100KB
+    private static final long ALLOCATION_BUDGET_BYTES = 4096;
+
+    public void testContinuousDrag() throws Exception {
+        replay("drag_continuous.rsbt", 0, 1);
+    }
+
+    public void testCellsDrag() throws Exception {
+        replay("drag_cells.rsbt", 0, 1000);
+    }
+
+    public void testReserveCellsDrag() throws Exception {
+        // the right thumb keeps pushing back for half of the line
+        replay("drag_cells.rsbt", 50000, 1000);
+    }
+
+    private void replay(String name, float reserve, int cells) throws IOException {
+        GestureTrace trace = load(name);
+        final RangeSeekBar bar = new RangeSeekBar(getInstrumentation().getTargetContext());
+        bar.setRules(0, 100000, reserve, cells);
+        bar.measure(View.MeasureSpec.makeMeasureSpec(trace.mWidth, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(trace.mHeight, View.MeasureSpec.EXACTLY));
+        bar.layout(0, 0, trace.mWidth, trace.mHeight);
+        final Bitmap bitmap = Bitmap.createBitmap(trace.mWidth, trace.mHeight, Bitmap.Config.ARGB_8888);
+        final Canvas canvas = new Canvas(bitmap);
+        // obtained up front so that only the allocations of the bar are counted
+        final MotionEvent[] events = trace.obtainEvents();
+        final long[] durations = new long[events.length];
+        final long[] allocated = new long[1];
+
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                // warm up
+                replayOnce(bar, canvas, events, durations);
+                Debug.startAllocCounting();
+                Debug.resetThreadAllocSize();
+                replayOnce(bar, canvas, events, durations);
+                allocated[0] = Debug.getThreadAllocSize();
+                Debug.stopAllocCounting();
+            }
+        });
+        for (MotionEvent event : events) {
+            event.recycle();
+        }
+        bitmap.recycle();
+
+        Arrays.sort(durations);
+        long percentile = durations[(int) ((durations.length - 1) * EVENT_TIME_PERCENTILE)];
+        long max = durations[durations.length - 1];
+        String label = name + " reserve=" + reserve + " cells=" + cells;
+        Log.i(TAG, label + ": " + events.length + " events, p99 " + percentile + " ns, max " + max + " ns, "
+                + allocated[0] + " bytes");
+        assertTrue(label + ": p99 event time " + percentile + " ns over budget " + EVENT_TIME_BUDGET_NANOS,
+                percentile <= EVENT_TIME_BUDGET_NANOS);
+        assertTrue(label + ": allocated " + allocated[0] + " bytes over budget " + ALLOCATION_BUDGET_BYTES,
+                allocated[0] <= ALLOCATION_BUDGET_BYTES);
+    }
+
+    private static void replayOnce(RangeSeekBar bar, Canvas canvas, MotionEvent[] events, long[] durations) {
+        // the traces start on the left thumb at its initial position
+        bar.setValue(0, 100000);
+        for (int i = 0; i < events.length; i++) {
+            long start = System.nanoTime();
+            bar.onTouchEvent(events[i]);
+            bar.draw(canvas);
+            durations[i] = System.nanoTime() - start;
+        }
+    }
+
+    private GestureTrace load(String name) throws IOException {
+        InputStream in = getClass().getResourceAsStream("traces/" + name);
+        if (in == null) {
+            throw new IOException("missing trace " + name);
+        }
+        try {
+            return GestureTrace.read(in);
+        } finally {
+            in.close();
+        }
+    }
+}
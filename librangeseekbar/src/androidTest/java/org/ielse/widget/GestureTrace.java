@@ -0,0 +1,155 @@
+package org.ielse.widget;
+
+import android.view.MotionEvent;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Timestamped single pointer touch samples of a gesture, recorded on a view of a given size. Stored as 7
+ * bytes per sample: the action, the ms since the previous sample and x, y in 1/8 px.
+ */
+final class GestureTrace {
+
+    private static final int MAGIC = 0x52534254; // "RSBT"
+    private static final int VERSION = 1;
+    private static final float POSITION_SCALE = 8;
+
+    final int mWidth, mHeight;
+    final int mSize;
+    final byte[] mActions;
+    final long[] mTimes;
+    final float[] mXs, mYs;
+
+    private GestureTrace(int width, int height, int size, byte[] actions, long[] times, float[] xs, float[] ys) {
+        mWidth = width;
+        mHeight = height;
+        mSize = size;
+        mActions = actions;
+        mTimes = times;
+        mXs = xs;
+        mYs = ys;
+    }
+
+    static GestureTrace read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC || data.readUnsignedByte() != VERSION) {
+            throw new IOException("not a gesture trace");
+        }
+        int width = data.readUnsignedShort();
+        int height = data.readUnsignedShort();
+        int size = data.readInt();
+        byte[] actions = new byte[size];
+        long[] times = new long[size];
+        float[] xs = new float[size];
+        float[] ys = new float[size];
+        long time = 0;
+        for (int i = 0; i < size; i++) {
+            actions[i] = data.readByte();
+            time += data.readUnsignedShort();
+            times[i] = time;
+            xs[i] = data.readUnsignedShort() / POSITION_SCALE;
+            ys[i] = data.readUnsignedShort() / POSITION_SCALE;
+        }
+        return new GestureTrace(width, height, size, actions, times, xs, ys);
+    }
+
+    void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeShort(mWidth);
+        data.writeShort(mHeight);
+        data.writeInt(mSize);
+        long time = 0;
+        for (int i = 0; i < mSize; i++) {
+            data.writeByte(mActions[i]);
+            data.writeShort((int) (mTimes[i] - time));
+            time = mTimes[i];
+            data.writeShort(Math.round(mXs[i] * POSITION_SCALE));
+            data.writeShort(Math.round(mYs[i] * POSITION_SCALE));
+        }
+        data.flush();
+    }
+
+    /**
+     * @return one MotionEvent per sample, to be recycled by the caller
+     */
+    MotionEvent[] obtainEvents() {
+        MotionEvent[] events = new MotionEvent[mSize];
+        for (int i = 0; i < mSize; i++) {
+            events[i] = MotionEvent.obtain(mTimes[0], mTimes[i], mActions[i], mXs[i], mYs[i], 0);
+        }
+        return events;
+    }
+
+    /**
+     * A drag grabbing the left thumb of a {@link RangeSeekBar} at its initial position and sweeping it
+     * across the line and back with jitter and short pauses, one sample every 8ms.
+     */
+    static GestureTrace drag(int width, int height, int moves, long seed) {
+        Builder builder = new Builder(width, height);
+        Random random = new Random(seed);
+        float left = 80, right = width - 80;
+        float y = height * 5 / 6f;
+        long time = 0;
+        float x = left;
+        float velocity = 6;
+        builder.add(MotionEvent.ACTION_DOWN, time, x, y);
+        for (int i = 0; i < moves; i++) {
+            time += 8;
+            if (random.nextInt(50) != 0) {
+                x += velocity + random.nextFloat() * 2 - 1;
+            }
+            if (x > right || x < left) {
+                velocity = -velocity;
+                x = Math.max(left, Math.min(right, x));
+            }
+            builder.add(MotionEvent.ACTION_MOVE, time, x, y + random.nextFloat() * 4 - 2);
+        }
+        builder.add(MotionEvent.ACTION_UP, time + 8, x, y);
+        return builder.build();
+    }
+
+    /**
+     * Collects samples, e.g. from the onTouchEvent() of a debug build to record a real gesture.
+     */
+    static final class Builder {
+        private final int mWidth, mHeight;
+        private int mSize;
+        private byte[] mActions = new byte[64];
+        private long[] mTimes = new long[64];
+        private float[] mXs = new float[64];
+        private float[] mYs = new float[64];
+
+        Builder(int width, int height) {
+            mWidth = width;
+            mHeight = height;
+        }
+
+        Builder add(int action, long time, float x, float y) {
+            if (mSize == mActions.length) {
+                int capacity = mSize * 2;
+                mActions = Arrays.copyOf(mActions, capacity);
+                mTimes = Arrays.copyOf(mTimes, capacity);
+                mXs = Arrays.copyOf(mXs, capacity);
+                mYs = Arrays.copyOf(mYs, capacity);
+            }
+            mActions[mSize] = (byte) action;
+            mTimes[mSize] = time;
+            mXs[mSize] = x;
+            mYs[mSize] = y;
+            mSize++;
+            return this;
+        }
+
+        GestureTrace build() {
+            return new GestureTrace(mWidth, mHeight, mSize, mActions, mTimes, mXs, mYs);
+        }
+    }
+}
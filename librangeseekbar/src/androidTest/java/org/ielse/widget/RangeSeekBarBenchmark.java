@@ -0,0 +1,188 @@
+package org.ielse.widget;
+
+import android.graphics.Canvas;
+import android.graphics.Picture;
+import android.os.Debug;
+import android.test.InstrumentationTestCase;
+import android.util.Log;
+import android.view.MotionEvent;
+import android.view.View;
+
+/**
+ * Device benchmark of the draw and touch paths and getCurrentRange of RangeSeekBar, drawing into a
+ * recording Canvas.
+ * Reports ns/op and bytes allocated per op to logcat with the tag RangeSeekBarBenchmark. Ops run on the
+ * main thread, the press state animation of a drag needs a Looper.
+ */
+public class RangeSeekBarBenchmark extends InstrumentationTestCase {
+
+    private static final String TAG = "RangeSeekBarBenchmark";
+    private static final int WIDTH = 1080, HEIGHT = 200;
+    private static final int WARMUP = 1000, ITERATIONS = 5000;
+    private static final int[] CELLS = {1, 10, 1000, 100000};
+
+    private RangeSeekBar newBar(float reserve, int cells) {
+        RangeSeekBar bar = new RangeSeekBar(getInstrumentation().getTargetContext());
+        bar.setRules(0, 100000, reserve, cells);
+        bar.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        bar.layout(0, 0, WIDTH, HEIGHT);
+        return bar;
+    }
+
+    public void testDraw() throws Exception {
+        for (int cells : CELLS) {
+            final RangeSeekBar bar = newBar(0, cells);
+            run("draw cells=" + cells, new Op() {
+                @Override
+                public void run(Canvas canvas, MotionEvent event, int i) {
+                    bar.draw(canvas);
+                }
+            });
+        }
+    }
+
+    public void testDrawThumbAtlas() throws Exception {
+        final RangeSeekBar bar = newBar(0, 1);
+        run("draw shader thumb", new Op() {
+            @Override
+            public void run(Canvas canvas, MotionEvent event, int i) {
+                bar.draw(canvas);
+            }
+        });
+        bar.setThumbAtlasEnabled(true);
+        run("draw atlas thumb", new Op() {
+            @Override
+            public void run(Canvas canvas, MotionEvent event, int i) {
+                bar.draw(canvas);
+            }
+        });
+    }
+
+    public void testDrawDrawables() throws Exception {
+        // one host drawing a column of read-only and interactive ranges
+        final RangeSeekBarDrawable[] drawables = new RangeSeekBarDrawable[50];
+        RangeModel model = new RangeModel(0, 100, 0, 10);
+        int rowHeight = HEIGHT / 4;
+        for (int i = 0; i < drawables.length; i++) {
+            drawables[i] = new RangeSeekBarDrawable(model);
+            drawables[i].setThumbsVisible(i % 2 == 0);
+            drawables[i].setBounds(0, i * rowHeight, WIDTH, (i + 1) * rowHeight);
+            drawables[i].setValue(10, 60);
+        }
+        run("draw drawables=" + drawables.length, new Op() {
+            @Override
+            public void run(Canvas canvas, MotionEvent event, int i) {
+                for (RangeSeekBarDrawable drawable : drawables) {
+                    drawable.draw(canvas);
+                }
+            }
+        });
+    }
+
+    public void testGetCurrentRange() throws Exception {
+        for (int cells : CELLS) {
+            final RangeSeekBar bar = newBar(0, cells);
+            bar.setValue(20000, 80000);
+            final float[] range = new float[2];
+            run("getCurrentRange cells=" + cells, new Op() {
+                @Override
+                public void run(Canvas canvas, MotionEvent event, int i) {
+                    bar.getCurrentRange();
+                }
+            });
+            run("getCurrentRange(out) cells=" + cells, new Op() {
+                @Override
+                public void run(Canvas canvas, MotionEvent event, int i) {
+                    bar.getCurrentRange(range);
+                }
+            });
+        }
+    }
+
+    public void testDrag() throws Exception {
+        for (int cells : CELLS) {
+            drag("drag cells=" + cells, newBar(0, cells));
+        }
+        for (int cells : CELLS) {
+            // half of the range reserved, the right seek bar keeps pushing back
+            RangeSeekBar bar = newBar(50000, cells);
+            bar.setValue(0, 100000);
+            drag("reserve drag cells=" + cells, bar);
+        }
+        for (int thumbs : new int[]{2, 4, 16}) {
+            RangeSeekBar bar = newBar(0, 1);
+            bar.setThumbCount(thumbs);
+            drag("drag thumbs=" + thumbs, bar);
+        }
+    }
+
+    private void drag(String name, final RangeSeekBar bar) {
+        long time = 0;
+        float y = bar.getHeight() * 5 / 6f;
+        final MotionEvent down = MotionEvent.obtain(time, time, MotionEvent.ACTION_DOWN, 80, y, 0);
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                bar.onTouchEvent(down);
+            }
+        });
+        down.recycle();
+        run(name, new Op() {
+            @Override
+            public void run(Canvas canvas, MotionEvent event, int i) {
+                int phase = i % 1600;
+                event.setLocation(80 + (phase < 800 ? phase : 1600 - phase), event.getY());
+                bar.onTouchEvent(event);
+                bar.draw(canvas);
+            }
+        });
+        final MotionEvent up = MotionEvent.obtain(time, time, MotionEvent.ACTION_UP, 80, y, 0);
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                bar.onTouchEvent(up);
+            }
+        });
+        up.recycle();
+    }
+
+    private void run(final String name, final Op op) {
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                measure(name, op);
+            }
+        });
+    }
+
+    private static void measure(String name, Op op) {
+        MotionEvent event = MotionEvent.obtain(0, 0, MotionEvent.ACTION_MOVE, 80, HEIGHT * 5 / 6f, 0);
+        Picture picture = new Picture();
+        Canvas canvas = picture.beginRecording(WIDTH, HEIGHT);
+        for (int i = 0; i < WARMUP; i++) {
+            op.run(canvas, event, i);
+        }
+        picture.endRecording();
+
+        canvas = picture.beginRecording(WIDTH, HEIGHT);
+        Debug.startAllocCounting();
+        Debug.resetThreadAllocSize();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            op.run(canvas, event, i);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = Debug.getThreadAllocSize();
+        Debug.stopAllocCounting();
+        picture.endRecording();
+        event.recycle();
+
+        Log.i(TAG, name + ": " + elapsed / ITERATIONS + " ns/op, "
+                + allocated / (float) ITERATIONS + " bytes/op");
+    }
+
+    private interface Op {
+        void run(Canvas canvas, MotionEvent event, int i);
+    }
+}
@@ -0,0 +1,67 @@
+package org.ielse.widget;
+
+import android.test.InstrumentationTestCase;
+import android.view.MotionEvent;
+
+public class RangeSeekBarDrawableTest extends InstrumentationTestCase {
+
+    private static final int WIDTH = 1000, HEIGHT = 150;
+    // thumb centers sit on the line, 2/3 of the height down
+    private static final float THUMB_Y = HEIGHT * 2 / 3f;
+
+    private static RangeSeekBarDrawable newDrawable(RangeModel model) {
+        RangeSeekBarDrawable drawable = new RangeSeekBarDrawable(model);
+        drawable.setBounds(0, 0, WIDTH, HEIGHT);
+        return drawable;
+    }
+
+    public void testHitTestTakesTheStackedThumbThatCanMove() throws Exception {
+        RangeSeekBarDrawable drawable = newDrawable(new RangeModel(0, 100, 0, 10));
+        // stacked at the end: only the left thumb can move
+        drawable.setValue(100, 100);
+        assertEquals(drawable.thumbCenter(RangeSeekBarDrawable.THUMB_LEFT),
+                drawable.thumbCenter(RangeSeekBarDrawable.THUMB_RIGHT));
+        float x = drawable.thumbCenter(RangeSeekBarDrawable.THUMB_LEFT);
+        assertEquals(RangeSeekBarDrawable.THUMB_LEFT, drawable.hitTest(x, THUMB_Y));
+
+        drawable.setValue(50, 50);
+        x = drawable.thumbCenter(RangeSeekBarDrawable.THUMB_LEFT);
+        assertEquals(RangeSeekBarDrawable.THUMB_RIGHT, drawable.hitTest(x, THUMB_Y));
+        assertEquals(RangeSeekBarDrawable.THUMB_NONE, drawable.hitTest(x, 0));
+    }
+
+    public void testSlideSnapsToCellsAndKeepsTheReserve() throws Exception {
+        // 10 cells, a reserve of 2 cells
+        RangeSeekBarDrawable drawable = newDrawable(new RangeModel(0, 100, 20, 10));
+        float start = drawable.thumbCenter(RangeSeekBarDrawable.THUMB_LEFT);
+        float end = drawable.thumbCenter(RangeSeekBarDrawable.THUMB_RIGHT);
+
+        assertTrue(drawable.slide(RangeSeekBarDrawable.THUMB_RIGHT, start + (end - start) * 0.52f));
+        assertEquals(50f, drawable.getSelectedMax(), 1e-3f);
+        assertTrue(drawable.slide(RangeSeekBarDrawable.THUMB_LEFT, start + (end - start) * 0.12f));
+        assertEquals(10f, drawable.getSelectedMin(), 1e-3f);
+        assertTrue(drawable.slide(RangeSeekBarDrawable.THUMB_LEFT, start + (end - start) * 0.47f));
+        assertEquals(30f, drawable.getSelectedMin(), 1e-3f);
+        // pushed against the reserve, the right thumb stays
+        assertFalse(drawable.slide(RangeSeekBarDrawable.THUMB_RIGHT, start + (end - start) * 0.33f));
+        assertEquals(50f, drawable.getSelectedMax(), 1e-3f);
+    }
+
+    public void testSetDrawableIsIgnoredWhileDragging() throws Exception {
+        RangeSeekBarDrawable first = newDrawable(new RangeModel(0, 100, 0, 1));
+        RangeSeekBarDrawable second = newDrawable(new RangeModel(0, 100, 0, 1));
+        RangeSeekBarTouchHelper helper = new RangeSeekBarTouchHelper(first);
+        float x = first.thumbCenter(RangeSeekBarDrawable.THUMB_LEFT);
+        MotionEvent down = MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, x, THUMB_Y, 0);
+        MotionEvent up = MotionEvent.obtain(0, 16, MotionEvent.ACTION_UP, x, THUMB_Y, 0);
+
+        assertTrue(helper.onTouchEvent(down));
+        helper.setDrawable(second);
+        assertSame(first, helper.getDrawable());
+        assertTrue(helper.onTouchEvent(up));
+        helper.setDrawable(second);
+        assertSame(second, helper.getDrawable());
+        down.recycle();
+        up.recycle();
+    }
+}
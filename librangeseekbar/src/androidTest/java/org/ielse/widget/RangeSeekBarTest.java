@@ -0,0 +1,245 @@
+package org.ielse.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.os.Debug;
+import android.os.Parcelable;
+import android.test.InstrumentationTestCase;
+import android.view.MotionEvent;
+import android.view.View;
+
+/**
+ * Behaviour of RangeSeekBar that needs a real view, run on the main thread.
+ */
+public class RangeSeekBarTest extends InstrumentationTestCase {
+
+    private static final int WIDTH = 1080, HEIGHT = 200;
+    private static final int FRAMES = 300;
+
+    private RangeSeekBar newBar() {
+        RangeSeekBar bar = new RangeSeekBar(getInstrumentation().getContext());
+        bar.setRules(0, 100, 0, 1);
+        layout(bar);
+        return bar;
+    }
+
+    private static void layout(RangeSeekBar bar) {
+        bar.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        bar.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    private void runOnMainSync(Runnable runnable) {
+        getInstrumentation().runOnMainSync(runnable);
+    }
+
+    /**
+     * onDraw, drawRect, SeekBar.draw with both the shader thumb and bitmap thumbs, and drawTips while
+     * dragging, across a few hundred frames with changing values.
+     */
+    public void testDrawDoesNotAllocate() throws Exception {
+        final long[] allocated = new long[2];
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                RangeSeekBar shaderBar = newBar();
+                shaderBar.setBitmapResIds(0, 0, ielse.org.widget.test.R.drawable.test_tips);
+                allocated[0] = drawFrames(shaderBar);
+                RangeSeekBar bitmapBar = newBar();
+                bitmapBar.setBitmapResIds(ielse.org.widget.test.R.drawable.test_thumb,
+                        ielse.org.widget.test.R.drawable.test_thumb, ielse.org.widget.test.R.drawable.test_tips);
+                allocated[1] = drawFrames(bitmapBar);
+            }
+        });
+        assertEquals("shader thumb bytes allocated over " + FRAMES + " frames", 0, allocated[0]);
+        assertEquals("bitmap thumb bytes allocated over " + FRAMES + " frames", 0, allocated[1]);
+    }
+
+    public void testDragInvalidatesAroundTheMovingThumb() throws Exception {
+        final Rect[] dirty = new Rect[1];
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                RangeSeekBar bar = newBar();
+                Bitmap bitmap = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+                Canvas canvas = new Canvas(bitmap);
+                float y = HEIGHT * 5 / 6f;
+                MotionEvent down = MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, 80, y, 0);
+                MotionEvent move = MotionEvent.obtain(0, 16, MotionEvent.ACTION_MOVE, 100, y, 0);
+                bar.onTouchEvent(down);
+                bar.draw(canvas);
+                bar.onTouchEvent(move);
+                dirty[0] = new Rect();
+                dirty[0].set(bar.getLastDirtyRect());
+                down.recycle();
+                move.recycle();
+                bitmap.recycle();
+            }
+        });
+        Rect rect = dirty[0];
+        assertFalse("no partial invalidate", rect.isEmpty());
+        // the line band spans the selection, but only the thumb column reaches above the line
+        assertTrue("dirty rect " + rect, rect.top > 0);
+        assertTrue("dirty rect " + rect, rect.width() * rect.height() < WIDTH * HEIGHT);
+    }
+
+    public void testLongModeSurvivesSaveAndRestore() throws Exception {
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                long base = 1500000000000123L;
+                for (int cells : new int[]{1, 5}) {
+                    RangeSeekBar bar = newBar();
+                    // cells mode is replaced by a placeholder model when switching to long mode
+                    bar.setRules(0, 100, 0, cells);
+                    bar.setLongRules(base, base + 1000, 1, 10);
+                    bar.setThumbCount(3);
+                    bar.setLongValue(base + 500, base + 600);
+                    Parcelable state = bar.onSaveInstanceState();
+
+                    RangeSeekBar restored = newBar();
+                    restored.onRestoreInstanceState(state);
+                    assertTrue(restored.isLongMode());
+                    assertEquals(3, restored.getThumbCount());
+                    assertEquals(base + 500, restored.getSelectedMinLong());
+                    assertEquals(base + 600, restored.getSelectedMaxLong());
+                    assertEquals(bar.getThumbValueLong(1), restored.getThumbValueLong(1));
+                }
+            }
+        });
+    }
+
+    public void testFloatModeSurvivesSaveAndRestore() throws Exception {
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                RangeSeekBar bar = newBar();
+                bar.setRules(0, 100, 10, 11);
+                bar.setValue(20, 60);
+                Parcelable state = bar.onSaveInstanceState();
+
+                RangeSeekBar restored = newBar();
+                restored.onRestoreInstanceState(state);
+                assertFalse(restored.isLongMode());
+                assertEquals(20f, restored.getSelectedMin());
+                assertEquals(60f, restored.getSelectedMax());
+            }
+        });
+    }
+
+    public void testMiddleThumbsStayInOrderWhenTheEndsAreTooClose() throws Exception {
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                RangeSeekBar bar = newBar();
+                bar.setRules(0, 100, 10, 1);
+                bar.setThumbCount(4);
+                // 3 gaps of the reserve do not fit between 50 and 55
+                bar.setValue(50, 55);
+                assertEquals(50f, bar.getThumbValue(0));
+                assertEquals(55f, bar.getThumbValue(3));
+                for (int i = 1; i < 4; i++) {
+                    assertTrue(bar.getThumbValue(i) >= bar.getThumbValue(i - 1));
+                }
+
+                RangeSeekBar longBar = newBar();
+                longBar.setLongRules(0, 1000, 1, 100);
+                longBar.setThumbCount(4);
+                longBar.setLongValue(500, 550);
+                assertEquals(500, longBar.getThumbValueLong(0));
+                assertEquals(550, longBar.getThumbValueLong(3));
+                for (int i = 1; i < 4; i++) {
+                    assertTrue(longBar.getThumbValueLong(i) >= longBar.getThumbValueLong(i - 1));
+                }
+            }
+        });
+    }
+
+    public void testThumbValuesMustAscend() throws Exception {
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                RangeSeekBar bar = newBar();
+                bar.setRules(0, 100, 0, 1);
+                bar.setThumbCount(3);
+                try {
+                    bar.setThumbValues(new float[]{10, 60, 40});
+                    fail("descending values accepted");
+                } catch (IllegalArgumentException expected) {
+                }
+
+                bar.setLongRules(0, 100, 1, 0);
+                try {
+                    bar.setLongThumbValues(new long[]{10, 60, 40});
+                    fail("descending values accepted");
+                } catch (IllegalArgumentException expected) {
+                }
+            }
+        });
+    }
+
+    /**
+     * A row recycled while attached, as from RecyclerView.Adapter#onViewRecycled, takes its thumb and tips
+     * bitmaps back from the cache on the next bind or draw, and only once.
+     */
+    public void testRecycledRowReacquiresBitmaps() throws Exception {
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                RangeSeekBar bar = newBar();
+                bar.setBitmapResIds(ielse.org.widget.test.R.drawable.test_thumb,
+                        ielse.org.widget.test.R.drawable.test_thumb, ielse.org.widget.test.R.drawable.test_tips);
+                RangeSeekBarState state = new RangeSeekBarState(new RangeModel(0, 100, 0, 1), 20, 60);
+                Bitmap bitmap = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+                Canvas canvas = new Canvas(bitmap);
+
+                bar.recycle();
+                int lookups = bitmapLookups();
+                bar.bind(state);
+                // thumb and tips of both ends
+                assertEquals(lookups + 4, bitmapLookups());
+                bar.bind(state);
+                bar.draw(canvas);
+                assertEquals(lookups + 4, bitmapLookups());
+
+                bar.recycle();
+                bar.draw(canvas);
+                assertEquals(lookups + 8, bitmapLookups());
+                bitmap.recycle();
+            }
+        });
+    }
+
+    private static int bitmapLookups() {
+        return SharedBitmapCache.getHitCount() + SharedBitmapCache.getMissCount();
+    }
+
+    private static long drawFrames(RangeSeekBar bar) {
+        Bitmap bitmap = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        // grab the left thumb so the tips are drawn
+        float y = HEIGHT * 5 / 6f;
+        MotionEvent down = MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, 80, y, 0);
+        MotionEvent move = MotionEvent.obtain(0, 16, MotionEvent.ACTION_MOVE, 100, y, 0);
+        bar.onTouchEvent(down);
+        bar.onTouchEvent(move);
+        // warm up, every tips label once
+        for (int i = 0; i < FRAMES; i++) {
+            bar.setValue(i % 50, 50 + i % 50);
+            bar.draw(canvas);
+        }
+        Debug.startAllocCounting();
+        Debug.resetThreadAllocSize();
+        for (int i = 0; i < FRAMES; i++) {
+            bar.setValue(i % 50, 50 + i % 50);
+            bar.draw(canvas);
+        }
+        long allocated = Debug.getThreadAllocSize();
+        Debug.stopAllocCounting();
+        down.recycle();
+        move.recycle();
+        bitmap.recycle();
+        return allocated;
+    }
+}
@@ -0,0 +1,70 @@
+package org.ielse.widget;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The single low priority background thread shared by every RangeSeekBar, plus a main thread handler to
+ * deliver results. Range queries get a thread of their own so slow queries never delay decoding.
+ */
+final class BackgroundExecutor {
+
+    private static ExecutorService sExecutor;
+    private static ExecutorService sQueryExecutor;
+    private static Handler sMainHandler;
+    private static final Executor sMainExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            postToMain(command);
+        }
+    };
+
+    private BackgroundExecutor() {
+    }
+
+    private static synchronized void ensureStarted() {
+        if (sExecutor == null) {
+            sExecutor = Executors.newSingleThreadExecutor(newThreadFactory("RangeSeekBar-worker"));
+            sMainHandler = new Handler(Looper.getMainLooper());
+        }
+    }
+
+    private static ThreadFactory newThreadFactory(final String name) {
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, name);
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        };
+    }
+
+    static synchronized Executor queryExecutor() {
+        if (sQueryExecutor == null) {
+            sQueryExecutor = Executors.newSingleThreadExecutor(newThreadFactory("RangeSeekBar-query"));
+        }
+        return sQueryExecutor;
+    }
+
+    static Executor mainExecutor() {
+        return sMainExecutor;
+    }
+
+    static Future<?> submit(Runnable task) {
+        ensureStarted();
+        return sExecutor.submit(task);
+    }
+
+    static void postToMain(Runnable task) {
+        ensureStarted();
+        sMainHandler.post(task);
+    }
+}
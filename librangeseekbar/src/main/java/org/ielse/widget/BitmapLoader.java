@@ -0,0 +1,88 @@
+package org.ielse.widget;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+
+import java.util.concurrent.Future;
+
+/**
+ * Decodes bitmaps through {@link SharedBitmapCache} on the {@link BackgroundExecutor} thread and delivers them
+ * all at once on the main thread.
+ */
+final class BitmapLoader {
+
+    interface Callback {
+        /**
+         * Called on the main thread. bitmaps[i] holds one acquired reference for resIds[i], or null.
+         *
+         * @param decodeNanos time spent on the background thread, cache hits included
+         */
+        void onBitmapsLoaded(int[] resIds, Bitmap[] bitmaps, long decodeNanos);
+    }
+
+    private BitmapLoader() {
+    }
+
+    static Task load(Resources res, int[] resIds, Callback callback) {
+        Task task = new Task(res, resIds, callback);
+        task.mFuture = BackgroundExecutor.submit(task);
+        return task;
+    }
+
+    static final class Task implements Runnable {
+        private final Resources mRes;
+        private final int[] mResIds;
+        private final Bitmap[] mBitmaps;
+        private final Callback mCallback;
+        private volatile boolean mCancelled;
+        private long mDecodeNanos;
+        private Future<?> mFuture;
+
+        private Task(Resources res, int[] resIds, Callback callback) {
+            mRes = res;
+            mResIds = resIds;
+            mBitmaps = new Bitmap[resIds.length];
+            mCallback = callback;
+        }
+
+        @Override
+        public void run() {
+            if (mCancelled) {
+                return;
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < mResIds.length; i++) {
+                if (mResIds[i] > 0) {
+                    mBitmaps[i] = SharedBitmapCache.acquire(mRes, mResIds[i]);
+                }
+            }
+            mDecodeNanos = System.nanoTime() - start;
+            BackgroundExecutor.postToMain(new Runnable() {
+                @Override
+                public void run() {
+                    if (mCancelled) {
+                        releaseAll();
+                    } else {
+                        mCallback.onBitmapsLoaded(mResIds, mBitmaps, mDecodeNanos);
+                    }
+                }
+            });
+        }
+
+        /**
+         * Must be called on the main thread. Bitmaps decoded for a cancelled task are released on delivery.
+         */
+        void cancel() {
+            mCancelled = true;
+            mFuture.cancel(false);
+        }
+
+        private void releaseAll() {
+            for (int i = 0; i < mResIds.length; i++) {
+                if (mBitmaps[i] != null) {
+                    SharedBitmapCache.release(mRes, mResIds[i]);
+                }
+            }
+        }
+    }
+}
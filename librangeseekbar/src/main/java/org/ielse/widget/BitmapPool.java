@@ -0,0 +1,54 @@
+package org.ielse.widget;
+
+import android.graphics.Bitmap;
+
+import java.util.ArrayList;
+
+/**
+ * Small process-wide pool of the layer bitmaps (track cache, histogram), so bars recycled as list rows
+ * reuse the layers of bars of the same size instead of allocating new ones.
+ */
+final class BitmapPool {
+
+    private static final long MAX_BYTES = Math.min(Runtime.getRuntime().maxMemory() / 64, 4 * 1024 * 1024);
+    private static final ArrayList<Bitmap> sBitmaps = new ArrayList<>();
+    private static long sBytes;
+
+    private BitmapPool() {
+    }
+
+    /**
+     * @return a pooled bitmap of exactly this size and config, erased by the caller, or a new one
+     */
+    static synchronized Bitmap obtain(int width, int height, Bitmap.Config config) {
+        for (int i = sBitmaps.size() - 1; i >= 0; i--) {
+            Bitmap bitmap = sBitmaps.get(i);
+            if (bitmap.getWidth() == width && bitmap.getHeight() == height && bitmap.getConfig() == config) {
+                sBitmaps.remove(i);
+                sBytes -= bitmap.getByteCount();
+                return bitmap;
+            }
+        }
+        return Bitmap.createBitmap(width, height, config);
+    }
+
+    /**
+     * Hand a bitmap back; it is recycled if the pool is full.
+     */
+    static synchronized void release(Bitmap bitmap) {
+        if (sBytes + bitmap.getByteCount() > MAX_BYTES) {
+            bitmap.recycle();
+            return;
+        }
+        sBitmaps.add(bitmap);
+        sBytes += bitmap.getByteCount();
+    }
+
+    static synchronized void clear() {
+        for (Bitmap bitmap : sBitmaps) {
+            bitmap.recycle();
+        }
+        sBitmaps.clear();
+        sBytes = 0;
+    }
+}
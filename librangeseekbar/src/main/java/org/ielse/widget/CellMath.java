@@ -0,0 +1,43 @@
+package org.ielse.widget;
+
+/**
+ * Closed-form cell snapping and tick spacing for cells mode, independent of the cells count.
+ */
+final class CellMath {
+
+    private CellMath() {
+    }
+
+    /**
+     * Snap the left seek bar to the nearest cell, keeping reserveCount cells to the right seek bar.
+     *
+     * @return the cell index
+     */
+    static int snapLeft(float percent, float cellsPercent, float rightPercent, int reserveCount) {
+        int touch = Math.round(percent / cellsPercent);
+        int limit = Math.round(rightPercent / cellsPercent) - reserveCount;
+        return touch > limit ? Math.min(touch, Math.max(limit, 0)) : touch;
+    }
+
+    /**
+     * Snap the right seek bar to the nearest cell, keeping reserveCount cells to the left seek bar.
+     *
+     * @return the cell index
+     */
+    static int snapRight(float percent, float cellsPercent, float leftPercent, int reserveCount, int cellsCount) {
+        int touch = Math.round(percent / cellsPercent);
+        int limit = Math.round(leftPercent / cellsPercent) + reserveCount;
+        return touch < limit ? Math.max(touch, Math.min(limit, cellsCount)) : touch;
+    }
+
+    /**
+     * @return draw every n-th tick so that ticks are at least minSpacing pixels apart
+     */
+    static int tickStep(int cellsCount, float lineWidth, float minSpacing) {
+        float spacing = lineWidth / cellsCount;
+        if (spacing >= minSpacing || spacing <= 0) {
+            return 1;
+        }
+        return (int) Math.ceil(minSpacing / spacing);
+    }
+}
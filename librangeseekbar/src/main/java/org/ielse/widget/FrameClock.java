@@ -0,0 +1,109 @@
+package org.ielse.widget;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+
+/**
+ * One frame callback for every animating bar of the process, advancing all of them in one pass. Frames
+ * are only requested while a client is registered and nothing is allocated per frame. Main thread only.
+ */
+class FrameClock {
+
+    interface Client {
+        /**
+         * @return false when done, the client is then unregistered
+         */
+        boolean onFrame(long frameTimeNanos);
+    }
+
+    private static FrameClock sInstance;
+
+    private final ArrayList<Client> mClients = new ArrayList<>();
+    private boolean mScheduled;
+
+    static FrameClock getInstance() {
+        if (sInstance == null) {
+            sInstance = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN
+                    ? new ChoreographerClock() : new HandlerClock();
+        }
+        return sInstance;
+    }
+
+    void add(Client client) {
+        if (!mClients.contains(client)) {
+            mClients.add(client);
+        }
+        if (!mScheduled) {
+            mScheduled = true;
+            postFrame();
+        }
+    }
+
+    /**
+     * A frame already requested still runs once and then stops.
+     */
+    void remove(Client client) {
+        mClients.remove(client);
+    }
+
+    int getClientCount() {
+        return mClients.size();
+    }
+
+    void doFrame(long frameTimeNanos) {
+        mScheduled = false;
+        // backwards so finished clients are removed in place; a client may remove others while called
+        for (int i = mClients.size() - 1; i >= 0; i--) {
+            if (i >= mClients.size()) {
+                continue;
+            }
+            Client client = mClients.get(i);
+            if (!client.onFrame(frameTimeNanos) && i < mClients.size() && mClients.get(i) == client) {
+                mClients.remove(i);
+            }
+        }
+        if (!mClients.isEmpty() && !mScheduled) {
+            mScheduled = true;
+            postFrame();
+        }
+    }
+
+    void postFrame() {
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static final class ChoreographerClock extends FrameClock implements Choreographer.FrameCallback {
+        @Override
+        void postFrame() {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            super.doFrame(frameTimeNanos);
+        }
+    }
+
+    /**
+     * API 15 has no Choreographer, frames are approximated with a 16ms delay.
+     */
+    private static final class HandlerClock extends FrameClock implements Runnable {
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+        @Override
+        void postFrame() {
+            mHandler.postDelayed(this, 16);
+        }
+
+        @Override
+        public void run() {
+            doFrame(SystemClock.uptimeMillis() * 1000000L);
+        }
+    }
+}
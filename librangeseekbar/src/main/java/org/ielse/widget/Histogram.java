@@ -0,0 +1,60 @@
+package org.ielse.widget;
+
+/**
+ * Bins raw datasets into bucket counts for the histogram backdrop. Primitive arrays only, called on the
+ * background thread.
+ */
+final class Histogram {
+
+    private Histogram() {
+    }
+
+    /**
+     * Count values into buckets of equal width over [min, max]; values outside, and NaN, are skipped.
+     *
+     * @param rangeScale buckets of equal width in positions of this scale, null for linear
+     */
+    static int[] bin(float[] values, double min, double max, int buckets, RangeScale rangeScale) {
+        int[] counts = new int[buckets];
+        double scale = buckets / (max - min);
+        for (float value : values) {
+            if (value >= min && value <= max) {
+                counts[bucketOf(value, min, max, scale, buckets, rangeScale)]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Long variant of {@link #bin(float[], double, double, int, RangeScale)}. Bucket edges are compared in
+     * double precision, exact for values up to 2^53.
+     */
+    static int[] bin(long[] values, double min, double max, int buckets, RangeScale rangeScale) {
+        int[] counts = new int[buckets];
+        double scale = buckets / (max - min);
+        for (long value : values) {
+            if (value >= min && value <= max) {
+                counts[bucketOf(value, min, max, scale, buckets, rangeScale)]++;
+            }
+        }
+        return counts;
+    }
+
+    private static int bucketOf(double value, double min, double max, double scale, int buckets,
+                                RangeScale rangeScale) {
+        int bucket = rangeScale == null ? (int) ((value - min) * scale)
+                : (int) (rangeScale.positionOf(value, min, max) * buckets);
+        // max itself belongs to the last bucket
+        return bucket < buckets ? bucket : buckets - 1;
+    }
+
+    static int max(int[] counts) {
+        int max = 0;
+        for (int count : counts) {
+            if (count > max) {
+                max = count;
+            }
+        }
+        return max;
+    }
+}
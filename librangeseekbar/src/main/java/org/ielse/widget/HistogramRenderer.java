@@ -0,0 +1,207 @@
+package org.ielse.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+
+import java.util.concurrent.Future;
+
+/**
+ * Bins the histogram dataset of a {@link RangeSeekBar} in the background and draws it behind the track
+ * from a cached alpha mask, bars inside the selection in a different color.
+ */
+final class HistogramRenderer {
+
+    private static final int DEFAULT_BUCKETS = 40;
+    private static final int HEIGHT_DP = 32;
+
+    private final float mDensity;
+    private final Runnable mOnChanged;
+    private final Paint mPaint = new Paint();
+    private float[] mFloats;
+    private long[] mLongs;
+    private int mBuckets;
+    private int[] mCounts;
+    private int mGeneration;
+    private Future<?> mTask;
+    private int mColorInside;
+    private int mColorOutside;
+    private int mLeft, mWidth, mBottom;
+    private boolean mDirty = true;
+    private Bitmap mLayer;
+    private Canvas mLayerCanvas;
+    private int mTop;
+
+    /**
+     * @param onChanged run on the main thread when new counts arrive or the histogram is removed
+     */
+    HistogramRenderer(float density, Runnable onChanged) {
+        mDensity = density;
+        mOnChanged = onChanged;
+    }
+
+    void setData(float[] values) {
+        mFloats = values;
+        mLongs = null;
+    }
+
+    void setData(long[] values) {
+        mFloats = null;
+        mLongs = values;
+    }
+
+    boolean hasData() {
+        return mFloats != null || mLongs != null;
+    }
+
+    /**
+     * @param buckets 0 for the default
+     */
+    void setBuckets(int buckets) {
+        mBuckets = buckets;
+    }
+
+    void setColors(int insideColor, int outsideColor) {
+        mColorInside = insideColor;
+        mColorOutside = outsideColor;
+    }
+
+    /**
+     * Bin the dataset in the background; a result is dropped if the dataset or rules changed meanwhile.
+     *
+     * @param cells bucket count used when none was set, 0 for the default
+     * @param scale null for linear
+     */
+    void bin(final double min, final double max, int cells, final RangeScale scale) {
+        final int generation = ++mGeneration;
+        if (mTask != null) {
+            mTask.cancel(false);
+            mTask = null;
+        }
+        if (!hasData()) {
+            if (mCounts != null) {
+                mCounts = null;
+                mOnChanged.run();
+            }
+            return;
+        }
+        final float[] floats = mFloats;
+        final long[] longs = mLongs;
+        final int buckets = mBuckets > 0 ? mBuckets : cells > 0 ? cells : DEFAULT_BUCKETS;
+        mTask = BackgroundExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                final int[] counts = floats != null ? Histogram.bin(floats, min, max, buckets, scale)
+                        : Histogram.bin(longs, min, max, buckets, scale);
+                BackgroundExecutor.postToMain(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != mGeneration) {
+                            return;
+                        }
+                        mTask = null;
+                        mCounts = counts;
+                        mDirty = true;
+                        mOnChanged.run();
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * @param bottom the bars stand on this y, the top of the track
+     */
+    void layout(int left, int width, int bottom) {
+        mLeft = left;
+        mWidth = width;
+        mBottom = bottom;
+        mDirty = true;
+    }
+
+    /**
+     * @return the top of the layer last drawn, Integer.MAX_VALUE when none is
+     */
+    int getTop() {
+        return mLayer != null ? mTop : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Draw the cached histogram shape three times, clipped to the parts left of, inside and right of
+     * the selection, each in its color.
+     */
+    void draw(Canvas canvas, float selectionLeft, float selectionRight) {
+        if (mCounts == null || !prepareLayer()) {
+            return;
+        }
+        drawPart(canvas, mLeft, selectionLeft, mColorOutside);
+        drawPart(canvas, selectionLeft, selectionRight, mColorInside);
+        drawPart(canvas, selectionRight, mLeft + mWidth, mColorOutside);
+    }
+
+    private void drawPart(Canvas canvas, float left, float right, int color) {
+        if (right <= left) {
+            return;
+        }
+        mPaint.setColor(color);
+        canvas.save();
+        canvas.clipRect(left, mTop, right, mTop + mLayer.getHeight());
+        canvas.drawBitmap(mLayer, mLeft, mTop, mPaint);
+        canvas.restore();
+    }
+
+    /**
+     * Render the bars into an alpha mask, only after a size or dataset change.
+     *
+     * @return false if there is nothing to draw yet (no size)
+     */
+    private boolean prepareLayer() {
+        int width = mWidth;
+        int height = Math.min((int) (mDensity * HEIGHT_DP), mBottom / 2);
+        if (width <= 0 || height <= 0) {
+            return false;
+        }
+        if (mLayer == null || mLayer.getWidth() != width || mLayer.getHeight() != height) {
+            release();
+            mLayer = BitmapPool.obtain(width, height, Bitmap.Config.ALPHA_8);
+            if (mLayerCanvas == null) {
+                mLayerCanvas = new Canvas();
+            }
+            mLayerCanvas.setBitmap(mLayer);
+            mDirty = true;
+        }
+        mTop = mBottom - height;
+        if (mDirty) {
+            mLayer.eraseColor(Color.TRANSPARENT);
+            int[] counts = mCounts;
+            int maxCount = Histogram.max(counts);
+            if (maxCount > 0) {
+                float barWidth = width / (float) counts.length;
+                float gap = barWidth > 4 ? 1 : 0;
+                mPaint.setStyle(Paint.Style.FILL);
+                mPaint.setColor(Color.BLACK);
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] > 0) {
+                        float barHeight = Math.max(height * (float) counts[i] / maxCount, 1);
+                        mLayerCanvas.drawRect(i * barWidth + gap, height - barHeight, (i + 1) * barWidth - gap,
+                                height, mPaint);
+                    }
+                }
+            }
+            mDirty = false;
+        }
+        return true;
+    }
+
+    /**
+     * Return the layer to the pool; it is rebuilt on the next draw.
+     */
+    void release() {
+        if (mLayer != null) {
+            mLayerCanvas.setBitmap(null);
+            BitmapPool.release(mLayer);
+            mLayer = null;
+        }
+    }
+}
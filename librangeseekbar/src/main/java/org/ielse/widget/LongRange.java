@@ -0,0 +1,122 @@
+package org.ielse.widget;
+
+/**
+ * Exact 64-bit rules for the discrete long mode: values go from min to max in whole steps and the two
+ * seek bars keep at least reserve apart. Positions are step indices in [0, steps].
+ */
+final class LongRange {
+
+    private final long mMin, mMax, mStep, mReserve;
+    private final long mSteps;
+    private final long mReserveSteps;
+
+    LongRange(long min, long max, long step, long reserve) {
+        if (max <= min || (min < 0 && max > Long.MAX_VALUE + min)) {
+            throw new IllegalArgumentException("setLongRules() max must be greater than min and (max - min) must fit a long !"
+                    + " #max:" + max + " #min:" + min);
+        }
+        if (step <= 0) {
+            throw new IllegalArgumentException("setLongRules() step must be greater than zero ! #step:" + step);
+        }
+        if ((max - min) % step != 0) {
+            throw new IllegalArgumentException("setLongRules() (max - min) % step != 0 . #max:" + max + " #min:" + min
+                    + " #step:" + step);
+        }
+        if (reserve < 0 || reserve >= max - min) {
+            throw new IllegalArgumentException("setLongRules() reserve must be in [0, max - min) ! #reserve:" + reserve
+                    + " #max - min:" + (max - min));
+        }
+        mMin = min;
+        mMax = max;
+        mStep = step;
+        mReserve = reserve;
+        mSteps = (max - min) / step;
+        mReserveSteps = reserve / step + (reserve % step != 0 ? 1 : 0);
+    }
+
+    long getMin() {
+        return mMin;
+    }
+
+    long getMax() {
+        return mMax;
+    }
+
+    long getStep() {
+        return mStep;
+    }
+
+    long getReserve() {
+        return mReserve;
+    }
+
+    long getSteps() {
+        return mSteps;
+    }
+
+    long getReserveSteps() {
+        return mReserveSteps;
+    }
+
+    /**
+     * @throws IllegalArgumentException if value is out of range or not on a step
+     */
+    long indexOf(long value) {
+        if (value < mMin || value > mMax) {
+            throw new IllegalArgumentException("setLongValue() value out of [min, max] . #value:" + value
+                    + " #min:" + mMin + " #max:" + mMax);
+        }
+        if ((value - mMin) % mStep != 0) {
+            throw new IllegalArgumentException("setLongValue() (value - min) % step != 0 . #value:" + value
+                    + " #min:" + mMin + " #step:" + mStep);
+        }
+        return (value - mMin) / mStep;
+    }
+
+    long valueAt(long index) {
+        return mMin + index * mStep;
+    }
+
+    long clampLeft(long index, long rightIndex) {
+        long limit = rightIndex - mReserveSteps;
+        if (index > limit) {
+            index = limit;
+        }
+        return index < 0 ? 0 : index;
+    }
+
+    long clampRight(long index, long leftIndex) {
+        long limit = leftIndex + mReserveSteps;
+        if (index < limit) {
+            index = limit;
+        }
+        return index > mSteps ? mSteps : index;
+    }
+
+    /**
+     * Round px / width * steps to the nearest index with integer math only, without overflow.
+     */
+    static long indexAt(long px, long width, long steps) {
+        if (width <= 0 || px <= 0) {
+            return 0;
+        }
+        if (px >= width) {
+            return steps;
+        }
+        return px * (steps / width) + (px * (steps % width) + width / 2) / width;
+    }
+
+    /**
+     * The index a fraction of the way from one index to another, exactly to at 1 however many steps lie
+     * between them.
+     */
+    static long interpolate(long from, long to, float fraction) {
+        if (fraction >= 1) {
+            return to;
+        }
+        if (fraction <= 0) {
+            return from;
+        }
+        return from + Math.round((to - from) * (double) fraction);
+    }
+}
@@ -0,0 +1,192 @@
+package org.ielse.widget;
+
+/**
+ * Headless range math of {@link RangeSeekBar}: the rules (min, max, reserve, cells) and the conversion
+ * and constraint functions between values and seek bar percents. The rules are immutable and there are
+ * no Android dependencies, so the model can be used on the JVM, e.g. to validate saved filters.
+ * <p>
+ * Percents are positions on the line in [0, 1]; values are what the user sees.
+ */
+public final class RangeModel {
+
+    private final float mMinValue, mMaxValue, mOffsetValue;
+    private final int mCellsCount;
+    private final float mCellsPercent;
+    private final float mReserveValue;
+    private final int mReserveCount;
+    private final float mReservePercent;
+
+    /**
+     * @throws IllegalArgumentException if the rules are inconsistent
+     */
+    public RangeModel(float min, float max, float reserve, int cells) {
+        if (max <= min) {
+            throw new IllegalArgumentException("setRules() max must be greater than min ! #max:" + max + " #min:" + min);
+        }
+        float offset = 0;
+        if (min < 0) {
+            offset = 0 - min;
+            min = min + offset;
+            max = max + offset;
+        }
+        if (reserve < 0) {
+            throw new IllegalArgumentException("setRules() reserve must be greater than zero ! #reserve:" + reserve);
+        }
+        if (reserve >= max - min) {
+            throw new IllegalArgumentException("setRules() reserve must be less than (max - min) ! #reserve:"
+                    + reserve + " #max - min:" + (max - min));
+        }
+        if (cells < 1) {
+            throw new IllegalArgumentException("setRules() cells must be greater than 1 ! #cells:" + cells);
+        }
+        mMinValue = min;
+        mMaxValue = max;
+        mOffsetValue = offset;
+        mCellsCount = cells;
+        mCellsPercent = 1f / cells;
+        mReserveValue = reserve;
+        mReservePercent = reserve / (max - min);
+        mReserveCount = (int) (mReservePercent / mCellsPercent + (mReservePercent % mCellsPercent != 0 ? 1 : 0));
+    }
+
+    public float getMin() {
+        return mMinValue - mOffsetValue;
+    }
+
+    public float getMax() {
+        return mMaxValue - mOffsetValue;
+    }
+
+    public float getReserve() {
+        return mReserveValue;
+    }
+
+    public int getCellsCount() {
+        return mCellsCount;
+    }
+
+    public boolean isCellsMode() {
+        return mCellsCount > 1;
+    }
+
+    public float getCellsPercent() {
+        return mCellsPercent;
+    }
+
+    /**
+     * @return reserve rounded up to whole cells
+     */
+    public int getReserveCount() {
+        return mReserveCount;
+    }
+
+    public float getReservePercent() {
+        return mReservePercent;
+    }
+
+    /**
+     * @return the minimum distance in percent between the two seek bars
+     */
+    public float getReserveSpan() {
+        return mCellsCount > 1 ? mCellsPercent * mReserveCount : mReservePercent;
+    }
+
+    public float valueOf(float percent) {
+        return -mOffsetValue + mMinValue + (mMaxValue - mMinValue) * percent;
+    }
+
+    /**
+     * @throws IllegalArgumentException if value is out of range or, with a reserve of more than one cell,
+     *                                  not on a reserve boundary
+     */
+    public float percentOf(float value) {
+        value = value + mOffsetValue;
+        if (value < mMinValue) {
+            throw new IllegalArgumentException("setValue() min < (preset min - offsetValue) . #min:" + value
+                    + " #preset min:" + mMinValue + " #offsetValue:" + mOffsetValue);
+        }
+        if (value > mMaxValue) {
+            throw new IllegalArgumentException("setValue() max > (preset max - offsetValue) . #max:" + value
+                    + " #preset max:" + mMaxValue + " #offsetValue:" + mOffsetValue);
+        }
+        if (mReserveCount > 1) {
+            if ((value - mMinValue) % mReserveCount != 0) {
+                throw new IllegalArgumentException("setValue() (value - preset min) % reserveCount != 0 . #value:"
+                        + value + " #preset min:" + mMinValue + "#reserveCount:" + mReserveCount + "#reserve:" + mReserveValue);
+            }
+            return (value - mMinValue) / mReserveCount * mCellsPercent;
+        }
+        return (value - mMinValue) / (mMaxValue - mMinValue);
+    }
+
+    /**
+     * Non-throwing check of {@link #percentOf(float)} for both values.
+     */
+    public boolean isValid(float min, float max) {
+        return isValidValue(min) && isValidValue(max) && min <= max;
+    }
+
+    private boolean isValidValue(float value) {
+        value = value + mOffsetValue;
+        return value >= mMinValue && value <= mMaxValue
+                && (mReserveCount <= 1 || (value - mMinValue) % mReserveCount == 0);
+    }
+
+    /**
+     * Constrain a left seek bar percent: snap to cells and keep the reserve to the right seek bar.
+     */
+    public float constrainLeft(float percent, float rightPercent) {
+        if (mCellsCount > 1) {
+            percent = CellMath.snapLeft(percent, mCellsPercent, rightPercent, mReserveCount) * mCellsPercent;
+        } else if (percent > rightPercent - mReservePercent) {
+            percent = rightPercent - mReservePercent;
+        }
+        return clamp(percent);
+    }
+
+    /**
+     * Constrain a right seek bar percent: snap to cells and keep the reserve to the left seek bar.
+     */
+    public float constrainRight(float percent, float leftPercent) {
+        if (mCellsCount > 1) {
+            percent = CellMath.snapRight(percent, mCellsPercent, leftPercent, mReserveCount, mCellsCount)
+                    * mCellsPercent;
+        } else if (percent < leftPercent + mReservePercent) {
+            percent = leftPercent + mReservePercent;
+        }
+        return clamp(percent);
+    }
+
+    /**
+     * After a rules change, the right percent that restores the reserve by moving the right seek bar,
+     * if it fits.
+     */
+    public float fitRight(float leftPercent, float rightPercent) {
+        float span = getReserveSpan();
+        if (leftPercent + span <= 1 && leftPercent + span > rightPercent) {
+            return leftPercent + span;
+        }
+        return rightPercent;
+    }
+
+    /**
+     * After a rules change, the left percent that restores the reserve by moving the left seek bar,
+     * if it fits. Apply after {@link #fitRight(float, float)}.
+     */
+    public float fitLeft(float leftPercent, float rightPercent) {
+        float span = getReserveSpan();
+        if (rightPercent - span >= 0 && rightPercent - span < leftPercent) {
+            return rightPercent - span;
+        }
+        return leftPercent;
+    }
+
+    static float clamp(float percent) {
+        if (percent < 0) {
+            return 0;
+        } else if (percent > 1) {
+            return 1;
+        }
+        return percent;
+    }
+}
@@ -0,0 +1,124 @@
+package org.ielse.widget;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Runs a {@link RangeSeekBar.RangeQuery} for the newest range only. A range submitted while the previous
+ * one is still waiting replaces it, so at most one query waits and submitting allocates nothing. Results
+ * of queries superseded while running are dropped instead of delivered, so the listener only ever sees
+ * the newest range, in order.
+ */
+final class RangeQueryExecutor<R> implements Runnable {
+
+    private final RangeSeekBar mView;
+    private final RangeSeekBar.RangeQuery<R> mQuery;
+    private final RangeSeekBar.OnRangeQueryResultListener<R> mListener;
+    private final Executor mExecutor;
+    private final Executor mMainExecutor;
+
+    // guarded by this
+    private long mGeneration;
+    private boolean mPending;
+    private double mPendingMin, mPendingMax;
+    private boolean mScheduled;
+    private int mRunning;
+    private int mDroppedCount;
+    private int mCompletedCount;
+
+    RangeQueryExecutor(RangeSeekBar view, RangeSeekBar.RangeQuery<R> query,
+                       RangeSeekBar.OnRangeQueryResultListener<R> listener, Executor executor, Executor mainExecutor) {
+        mView = view;
+        mQuery = query;
+        mListener = listener;
+        mExecutor = executor;
+        mMainExecutor = mainExecutor;
+    }
+
+    synchronized void submit(double min, double max) {
+        mGeneration++;
+        if (mPending) {
+            mDroppedCount++;
+        }
+        mPending = true;
+        mPendingMin = min;
+        mPendingMax = max;
+        if (!mScheduled) {
+            mScheduled = true;
+            mExecutor.execute(this);
+        }
+    }
+
+    /**
+     * Drop the waiting range and the result of a running query.
+     */
+    synchronized void cancel() {
+        mGeneration++;
+        if (mPending) {
+            mPending = false;
+            mDroppedCount++;
+        }
+    }
+
+    /**
+     * @return ranges waiting plus queries running
+     */
+    synchronized int getQueueDepth() {
+        return (mPending ? 1 : 0) + mRunning;
+    }
+
+    synchronized int getDroppedCount() {
+        return mDroppedCount;
+    }
+
+    synchronized int getCompletedCount() {
+        return mCompletedCount;
+    }
+
+    @Override
+    public void run() {
+        final double min, max;
+        final long generation;
+        synchronized (this) {
+            mScheduled = false;
+            if (!mPending) {
+                return;
+            }
+            mPending = false;
+            mRunning++;
+            min = mPendingMin;
+            max = mPendingMax;
+            generation = mGeneration;
+        }
+        final R result;
+        try {
+            result = mQuery.query(min, max);
+        } finally {
+            synchronized (this) {
+                mRunning--;
+            }
+        }
+        if (isStale(generation)) {
+            return;
+        }
+        mMainExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (isStale(generation)) {
+                    return;
+                }
+                synchronized (RangeQueryExecutor.this) {
+                    mCompletedCount++;
+                }
+                mListener.onRangeQueryResult(mView, min, max, result);
+            }
+        });
+    }
+
+    private synchronized boolean isStale(long generation) {
+        if (generation != mGeneration) {
+            mDroppedCount++;
+            return true;
+        }
+        return false;
+    }
+}
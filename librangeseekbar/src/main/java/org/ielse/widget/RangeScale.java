@@ -0,0 +1,122 @@
+package org.ielse.widget;
+
+/**
+ * Mapping between seek bar positions in [0, 1] and values in [min, max], see
+ * {@link RangeSeekBar#setScale(RangeScale)}. Must be strictly increasing. Pure java, the view samples it
+ * into a lookup table once per size so dragging never calls it.
+ */
+public abstract class RangeScale {
+
+    private static final RangeScale LINEAR = new RangeScale() {
+        @Override
+        public double valueAt(double position, double min, double max) {
+            return min + (max - min) * position;
+        }
+
+        @Override
+        public double positionOf(double value, double min, double max) {
+            return (value - min) / (max - min);
+        }
+    };
+
+    private static final RangeScale LOG = new RangeScale() {
+        @Override
+        public double valueAt(double position, double min, double max) {
+            return min + Math.expm1(position * Math.log1p(max - min));
+        }
+
+        @Override
+        public double positionOf(double value, double min, double max) {
+            return Math.log1p(value - min) / Math.log1p(max - min);
+        }
+    };
+
+    public abstract double valueAt(double position, double min, double max);
+
+    public abstract double positionOf(double value, double min, double max);
+
+    public static RangeScale linear() {
+        return LINEAR;
+    }
+
+    /**
+     * Logarithmic over the distance to min, so min may be 0, e.g. prices from $0 to $1M.
+     */
+    public static RangeScale log() {
+        return LOG;
+    }
+
+    /**
+     * value = min + (max - min) * position ^ exponent; exponents above 1 give more room to small values.
+     */
+    public static RangeScale power(final double exponent) {
+        if (!(exponent > 0)) {
+            throw new IllegalArgumentException("power() exponent must be greater than zero ! #exponent:" + exponent);
+        }
+        return new RangeScale() {
+            @Override
+            public double valueAt(double position, double min, double max) {
+                return min + (max - min) * Math.pow(position, exponent);
+            }
+
+            @Override
+            public double positionOf(double value, double min, double max) {
+                return Math.pow((value - min) / (max - min), 1 / exponent);
+            }
+        };
+    }
+
+    /**
+     * Linear between breakpoints, e.g. positions {0, 0.5, 1} and values {0, 1000, 1000000} spend half
+     * of the track on the first thousand. The first and last values should match the rules.
+     *
+     * @param positions ascending from 0 to 1
+     * @param values    ascending, one per position
+     */
+    public static RangeScale piecewise(float[] positions, float[] values) {
+        if (positions.length < 2 || positions.length != values.length) {
+            throw new IllegalArgumentException("piecewise() needs at least 2 breakpoints with one value each ! #positions:"
+                    + positions.length + " #values:" + values.length);
+        }
+        if (positions[0] != 0 || positions[positions.length - 1] != 1) {
+            throw new IllegalArgumentException("piecewise() positions must go from 0 to 1 ! #first:" + positions[0]
+                    + " #last:" + positions[positions.length - 1]);
+        }
+        for (int i = 1; i < positions.length; i++) {
+            if (positions[i] <= positions[i - 1] || values[i] <= values[i - 1]) {
+                throw new IllegalArgumentException("piecewise() breakpoints must be ascending ! #index:" + i);
+            }
+        }
+        final float[] xs = positions.clone();
+        final float[] ys = values.clone();
+        return new RangeScale() {
+            @Override
+            public double valueAt(double position, double min, double max) {
+                return interpolate(xs, ys, position);
+            }
+
+            @Override
+            public double positionOf(double value, double min, double max) {
+                return interpolate(ys, xs, value);
+            }
+        };
+    }
+
+    /**
+     * Piecewise linear ys at x over ascending xs, clamped to the ends.
+     */
+    private static double interpolate(float[] xs, float[] ys, double x) {
+        if (x <= xs[0]) {
+            return ys[0];
+        }
+        int last = xs.length - 1;
+        if (x >= xs[last]) {
+            return ys[last];
+        }
+        int i = 1;
+        while (xs[i] < x) {
+            i++;
+        }
+        return ys[i - 1] + (ys[i] - ys[i - 1]) * (x - xs[i - 1]) / (xs[i] - xs[i - 1]);
+    }
+}
@@ -1,28 +1,27 @@
 package org.ielse.widget;
 
-import android.animation.Animator;
-import android.animation.AnimatorListenerAdapter;
-import android.animation.TypeEvaluator;
 import android.animation.ValueAnimator;
 import android.content.Context;
 import android.content.res.Resources;
 import android.content.res.TypedArray;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.LinearGradient;
 import android.graphics.Paint;
 import android.graphics.RadialGradient;
+import android.graphics.Rect;
 import android.graphics.RectF;
 import android.graphics.Shader;
 import android.os.Parcel;
 import android.os.Parcelable;
-import android.text.TextPaint;
+import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
 import android.view.View;
 
+import java.util.concurrent.Executor;
+
 import ielse.org.widget.R;
 
 public class RangeSeekBar extends View {
@@ -34,31 +33,106 @@ public class RangeSeekBar extends View {
     private int mLineTop, mLineBottom, mLineLeft, mLineRight;
     private int mLineCorners;
     private int mLineWidth, mLineHeight;
-    private RectF mLine = new RectF();
 
     private int mLineShadeColorStart;
     private int mLineShadeColorEnd;
     private int mLineEdgeColor;
+    private LinearGradient mLineShader;
+
+    // static track layer cache
+    private boolean mTrackCacheEnabled;
+    private boolean mTrackCacheDirty = true;
+    private Bitmap mTrackCache;
+    private Canvas mTrackCacheCanvas;
+    private int mTrackCacheTop;
+
+    // cell ticks
+    private TrackRenderer mTrack;
+
+    // histogram backdrop
+    private HistogramRenderer mHistogram;
+
+    // dirty region of the thumbs and selected range
+    private RectF mDirtyBounds = new RectF();
+    // selected line as last drawn, NaN until drawn after a full invalidate
+    private float mDrawnSelectionLeft = Float.NaN, mDrawnSelectionRight = Float.NaN;
+    private Rect mDirtyRect = new Rect();
 
     // left right seek bar
     private SeekBar mLeftSeekBar = new SeekBar();
     private SeekBar mRightSeekBar = new SeekBar();
+    // every thumb in position order, mLeftSeekBar first and mRightSeekBar last
+    private SeekBar[] mThumbs = {mLeftSeekBar, mRightSeekBar};
     private SeekBar mTouchSeekBar;
+    private boolean mMiddleThumbsMoved;
+    // full press and release durations of the thumb press state, in ms
+    private static final int MATERIAL_PRESS_DURATION = 160;
+    private static final int MATERIAL_RESTORE_DURATION = 300;
+    // animated setValue, advanced with every other animating bar by the shared FrameClock
+    private static final int VALUE_ANIMATION_DURATION = 250;
+    private boolean mValueAnimating;
+    private long mValueAnimationStart;
+    private float mAnimFromMin, mAnimFromMax, mAnimToMin, mAnimToMax;
+    // step indexes in long mode, kept exact beyond 2^53 steps
+    private long mAnimFromMinIndex, mAnimFromMaxIndex, mAnimToMinIndex, mAnimToMaxIndex;
+    private final FrameClock.Client mValueAnimationClient = new FrameClock.Client() {
+        @Override
+        public boolean onFrame(long frameTimeNanos) {
+            return stepValueAnimation(frameTimeNanos);
+        }
+    };
     private int mLeftSeekBarResId;
     private int mRightSeekBarResId;
     private int mTipsResId;
+    private boolean mAsyncBitmapLoading;
+    private boolean mThumbAtlasEnabled;
+    // thumb bitmaps and atlases released by recycle(), taken back on the next attach, bind or draw
+    private boolean mRecycled;
+
+    // tips label
+    private static final int MAX_CACHED_TIPS_CELLS = 1024;
+    private TipsFormatter mTipsFormatter;
+    private Paint mTipsPaint = new Paint();
+    private String[] mTipsLabels;
+    private float[] mTipsWidths;
+    private BitmapLoader.Task mBitmapLoad;
 
     // scale mark
-    private float mMaxValue, mMinValue, mOffsetValue;
-    private int mCellsCount = 1;
-    private float mCellsPercent;
-    private float mReserveValue;
-    private int mReserveCount;
-    private float mReservePercent;
+    private RangeModel mModel;
     private boolean mMoving;
+    // long mode, null when the float rules are in use
+    private LongRange mLongRange;
+    // non-linear value mapping, null when linear
+    private RangeScale mScale;
+    private ScaleTable mScaleTable = new ScaleTable();
+    private boolean mScaleTableValid;
+    private int mTouchPredictionMillis;
+    private TouchPredictor mTouchPredictor = new TouchPredictor();
+
+    // metrics, null when disabled
+    private RangeSeekBarMetrics mMetrics;
+    private boolean mMetricsOverlayEnabled;
+    private Paint mMetricsPaint;
+    private StringBuilder mMetricsText;
 
     // listener
     private OnRangeChangedListener mChangeListener;
+    private OnLongRangeChangedListener mLongChangeListener;
+    private OnRangeTrackingListener mTrackingListener;
+    private OnRangeCountChangedListener mCountChangeListener;
+    private SortedDataset mDataset;
+    private RangeQueryExecutor<?> mRangeQuery;
+    private boolean mCoalesceRangeChanges;
+    private boolean mDispatchPending;
+    private float mDispatchedMin = Float.NaN, mDispatchedMax = Float.NaN;
+    private long mDispatchedMinLong, mDispatchedMaxLong;
+    private final Runnable mDispatchRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mDispatchPending = false;
+            dispatchRangeChanged();
+        }
+    };
 
     public RangeSeekBar(Context context) {
         this(context, null);
@@ -67,6 +141,13 @@ public class RangeSeekBar extends View {
     public RangeSeekBar(Context context, AttributeSet attrs) {
         super(context, attrs);
         mDensity = Resources.getSystem().getDisplayMetrics().density;
+        mTrack = new TrackRenderer(mDensity);
+        mHistogram = new HistogramRenderer(mDensity, new Runnable() {
+            @Override
+            public void run() {
+                invalidateAll();
+            }
+        });
         TypedArray t = context.obtainStyledAttributes(attrs, R.styleable.RangeSeekBar);
         mLineHeight = t.getDimensionPixelOffset(R.styleable.RangeSeekBar_lineHeight, (int) (mDensity * 5));
         mLeftSeekBarResId = t.getResourceId(R.styleable.RangeSeekBar_leftSeekBarResId, 0);
@@ -75,6 +156,15 @@ public class RangeSeekBar extends View {
         mLineShadeColorStart = t.getColor(R.styleable.RangeSeekBar_lineColorShadeStart, 0xFF00B4FF);
         mLineShadeColorEnd = t.getColor(R.styleable.RangeSeekBar_lineColorShadeEnd, 0xFF0E83FF);
         mLineEdgeColor = t.getColor(R.styleable.RangeSeekBar_lineColorEdge, 0xFFD7D7D7);
+        mHistogram.setColors(t.getColor(R.styleable.RangeSeekBar_histogramColorInside, 0x990E83FF),
+                t.getColor(R.styleable.RangeSeekBar_histogramColorOutside, 0x66D7D7D7));
+        mTrackCacheEnabled = t.getBoolean(R.styleable.RangeSeekBar_trackCache, false);
+        mCoalesceRangeChanges = t.getBoolean(R.styleable.RangeSeekBar_coalesceRangeChanges, false);
+        mAsyncBitmapLoading = t.getBoolean(R.styleable.RangeSeekBar_asyncBitmapLoading, false);
+        mThumbAtlasEnabled = t.getBoolean(R.styleable.RangeSeekBar_thumbAtlas, false);
+        mLineShader = createLineShader();
+        mTipsPaint.setTextSize(24);
+        mRightSeekBar.mPosition = 1;
         float min = t.getFloat(R.styleable.RangeSeekBar_min, 0);
         float max = t.getFloat(R.styleable.RangeSeekBar_max, 1);
         float reserve = t.getFloat(R.styleable.RangeSeekBar_reserve, 0);
@@ -87,166 +177,1213 @@ public class RangeSeekBar extends View {
         mChangeListener = listener;
     }
 
+    public void setOnLongRangeChangedListener(OnLongRangeChangedListener listener) {
+        mLongChangeListener = listener;
+    }
+
+    public void setOnRangeTrackingListener(OnRangeTrackingListener listener) {
+        mTrackingListener = listener;
+    }
+
+    /**
+     * Called along with the range changed listeners while a dataset is attached, see
+     * {@link #setDataset(float[], boolean)}.
+     */
+    public void setOnRangeCountChangedListener(OnRangeCountChangedListener listener) {
+        mCountChangeListener = listener;
+    }
+
+    /**
+     * Run query off the main thread on every range change, delivering only the newest result to listener on
+     * the main thread. Superseded ranges are skipped and results of superseded queries dropped, see
+     * {@link #getRangeQueryDroppedCount()}. Queries run one at a time on a thread shared by all bars.
+     *
+     * @param query null removes the query
+     */
+    public <R> void setRangeQuery(RangeQuery<R> query, OnRangeQueryResultListener<R> listener) {
+        setRangeQuery(query, listener, BackgroundExecutor.queryExecutor());
+    }
+
+    /**
+     * @param executor runs the queries, e.g. the executor of the app database
+     */
+    public <R> void setRangeQuery(RangeQuery<R> query, OnRangeQueryResultListener<R> listener, Executor executor) {
+        if (mRangeQuery != null) {
+            mRangeQuery.cancel();
+        }
+        mRangeQuery = query != null
+                ? new RangeQueryExecutor<>(this, query, listener, executor, BackgroundExecutor.mainExecutor()) : null;
+        submitRangeQuery();
+    }
+
+    private void submitRangeQuery() {
+        if (mRangeQuery != null) {
+            if (mLongRange != null) {
+                mRangeQuery.submit(getSelectedMinLong(), getSelectedMaxLong());
+            } else {
+                mRangeQuery.submit(getSelectedMin(), getSelectedMax());
+            }
+        }
+    }
+
+    /**
+     * @return ranges waiting for a query plus queries running
+     */
+    public int getRangeQueryQueueDepth() {
+        return mRangeQuery != null ? mRangeQuery.getQueueDepth() : 0;
+    }
+
+    /**
+     * @return ranges skipped before their query ran plus results of superseded queries
+     */
+    public int getRangeQueryDroppedCount() {
+        return mRangeQuery != null ? mRangeQuery.getDroppedCount() : 0;
+    }
+
+    public int getRangeQueryCompletedCount() {
+        return mRangeQuery != null ? mRangeQuery.getCompletedCount() : 0;
+    }
+
+    /**
+     * Attach the items being filtered so the number inside the selection is known in O(log n) without
+     * rescanning them, see {@link #getSelectionCount()}.
+     *
+     * @param values null detaches the dataset
+     * @param sorted true if values is ascending and can be kept by reference; otherwise a sorted copy is
+     *               made on the calling thread
+     */
+    public void setDataset(float[] values, boolean sorted) {
+        mDataset = values != null ? SortedDataset.of(values, sorted) : null;
+    }
+
+    /**
+     * Long counterpart of {@link #setDataset(float[], boolean)}, compared exactly in long mode.
+     */
+    public void setDataset(long[] values, boolean sorted) {
+        mDataset = values != null ? SortedDataset.of(values, sorted) : null;
+    }
+
+    /**
+     * @return index in the sorted dataset of the first item inside the selection, 0 without a dataset
+     */
+    public int getSelectionStartIndex() {
+        if (mDataset == null) {
+            return 0;
+        }
+        return mLongRange != null ? mDataset.lowerBound(getSelectedMinLong())
+                : mDataset.lowerBound((double) getSelectedMin());
+    }
+
+    /**
+     * @return index in the sorted dataset after the last item inside the selection, 0 without a dataset
+     */
+    public int getSelectionEndIndex() {
+        if (mDataset == null) {
+            return 0;
+        }
+        int end = mLongRange != null ? mDataset.upperBound(getSelectedMaxLong())
+                : mDataset.upperBound((double) getSelectedMax());
+        return Math.max(end, getSelectionStartIndex());
+    }
+
+    /**
+     * @return number of dataset items between the selected min and max, both inclusive
+     */
+    public int getSelectionCount() {
+        return getSelectionEndIndex() - getSelectionStartIndex();
+    }
+
+    /**
+     * While dragging, skip notifications whose values did not change and deliver the rest at most once
+     * per display frame. The final value is always flushed on release.
+     */
+    public void setCoalesceRangeChanges(boolean coalesce) {
+        mCoalesceRangeChanges = coalesce;
+    }
+
+    public boolean isCoalesceRangeChanges() {
+        return mCoalesceRangeChanges;
+    }
+
+    /**
+     * Place the dragged seek bar where the finger is expected to be this many milliseconds ahead, typically
+     * one frame interval, extrapolated from the batched touch history. 0 disables prediction.
+     */
+    public void setTouchPredictionMillis(int millis) {
+        mTouchPredictionMillis = millis;
+    }
+
+    public int getTouchPredictionMillis() {
+        return mTouchPredictionMillis;
+    }
+
+    /**
+     * Collect draw, touch, listener, invalidation and bitmap decode costs of this view into metrics.
+     *
+     * @param metrics null disables the collection
+     */
+    public void setMetrics(RangeSeekBarMetrics metrics) {
+        mMetrics = metrics;
+    }
+
+    public RangeSeekBarMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * Draw the collected metrics on top of the view, for debugging. Requires {@link #setMetrics(RangeSeekBarMetrics)}.
+     * While enabled every change invalidates the whole view so the numbers stay current.
+     */
+    public void setMetricsOverlayEnabled(boolean enabled) {
+        mMetricsOverlayEnabled = enabled;
+        if (enabled && mMetricsPaint == null) {
+            mMetricsPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+            mMetricsPaint.setColor(0xFFFF4081);
+            mMetricsPaint.setTextSize(mDensity * 10);
+            mMetricsText = new StringBuilder(64);
+        }
+        invalidateAll();
+    }
+
+    public boolean isMetricsOverlayEnabled() {
+        return mMetricsOverlayEnabled;
+    }
+
+    /**
+     * Customize the text drawn on the tips bitmap. In cells mode labels are formatted and measured once
+     * per cell, in continuous mode the last label is reused while the integer value is unchanged.
+     *
+     * @param formatter null restores the default label
+     */
+    public void setTipsFormatter(TipsFormatter formatter) {
+        mTipsFormatter = formatter;
+        resetTipsLabels();
+        invalidateAll();
+    }
+
+    private void resetTipsLabels() {
+        mTipsLabels = null;
+        mTipsWidths = null;
+        for (SeekBar bar : mThumbs) {
+            bar.mTipsValue = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Pre-render the static track (line, cell ticks, mid divider) into a cached layer that is only
+     * rebuilt on size, rules or color changes.
+     */
+    public void setTrackCacheEnabled(boolean enabled) {
+        if (mTrackCacheEnabled == enabled) {
+            return;
+        }
+        mTrackCacheEnabled = enabled;
+        if (!enabled) {
+            releaseTrackCache();
+        }
+        mTrackCacheDirty = true;
+        invalidateAll();
+    }
+
+    public boolean isTrackCacheEnabled() {
+        return mTrackCacheEnabled;
+    }
+
+    /**
+     * Decode the seek bar and tips bitmaps on a background thread. The default shader bar is drawn
+     * until they are ready.
+     */
+    public void setAsyncBitmapLoading(boolean async) {
+        mAsyncBitmapLoading = async;
+    }
+
+    public boolean isAsyncBitmapLoading() {
+        return mAsyncBitmapLoading;
+    }
+
+    /**
+     * Without seek bar bitmaps, draw the default thumb from a pre-rasterized atlas of press states shared
+     * by all bars of the same size, one bitmap blit per thumb instead of three anti-aliased circles.
+     */
+    public void setThumbAtlasEnabled(boolean enabled) {
+        mThumbAtlasEnabled = enabled;
+        for (SeekBar bar : mThumbs) {
+            bar.updateThumbAtlas();
+        }
+        invalidateAll();
+    }
+
+    public boolean isThumbAtlasEnabled() {
+        return mThumbAtlasEnabled;
+    }
+
+    /**
+     * The thumb and tips bitmaps otherwise only set from xml, for tests.
+     */
+    void setBitmapResIds(int leftSeekBarResId, int rightSeekBarResId, int tipsResId) {
+        mLeftSeekBarResId = leftSeekBarResId;
+        mRightSeekBarResId = rightSeekBarResId;
+        mTipsResId = tipsResId;
+        if (getWidth() > 0) {
+            layoutSeekBars(getWidth(), getHeight());
+            loadPendingBitmaps();
+        }
+        invalidateAll();
+    }
+
+    public void setLineColorEdge(int color) {
+        mLineEdgeColor = color;
+        mTrackCacheDirty = true;
+        invalidateAll();
+    }
+
+    public void setLineColorShade(int startColor, int endColor) {
+        mLineShadeColorStart = startColor;
+        mLineShadeColorEnd = endColor;
+        mLineShader = createLineShader();
+        invalidateAll();
+    }
+
+    /**
+     * Show the distribution of dataset behind the track, bars inside the selection drawn in a different
+     * color. Values are binned on a background thread into {@link #setHistogramBuckets(int) buckets} over
+     * the current rules and again whenever the rules change; dragging only redraws a cached layer.
+     * The array is kept by reference and must not be modified afterwards.
+     *
+     * @param values null removes the histogram
+     */
+    public void setHistogram(float[] values) {
+        mHistogram.setData(values);
+        binHistogram();
+    }
+
+    /**
+     * Long counterpart of {@link #setHistogram(float[])}, e.g. for timestamps in long mode.
+     */
+    public void setHistogram(long[] values) {
+        mHistogram.setData(values);
+        binHistogram();
+    }
+
+    /**
+     * @param buckets 0 uses one bucket per cell in cells mode, otherwise 40
+     */
+    public void setHistogramBuckets(int buckets) {
+        if (buckets < 0) {
+            throw new IllegalArgumentException("setHistogramBuckets() buckets must not be negative ! #buckets:" + buckets);
+        }
+        mHistogram.setBuckets(buckets);
+        binHistogram();
+    }
+
+    public void setHistogramColors(int insideColor, int outsideColor) {
+        mHistogram.setColors(insideColor, outsideColor);
+        invalidateAll();
+    }
+
+    private void binHistogram() {
+        double min = mLongRange != null ? mLongRange.getMin() : mModel.getMin();
+        double max = mLongRange != null ? mLongRange.getMax() : mModel.getMax();
+        mHistogram.bin(min, max, mModel.isCellsMode() ? mModel.getCellsCount() : 0,
+                mLongRange == null ? mScale : null);
+    }
+
+    /**
+     * Map positions to values non-linearly, e.g. {@link RangeScale#log()} for prices. The scale is sampled
+     * into a lookup table per track pixel on every size or rules change. Reserve and cells keep
+     * applying to positions. Ignored in long mode.
+     *
+     * @param scale null or {@link RangeScale#linear()} restores the linear mapping
+     */
+    public void setScale(RangeScale scale) {
+        mScale = scale == RangeScale.linear() ? null : scale;
+        buildScaleTable();
+        resetTipsLabels();
+        if (mHistogram.hasData()) {
+            binHistogram();
+        }
+        invalidateAll();
+    }
+
+    public RangeScale getScale() {
+        return mScale != null ? mScale : RangeScale.linear();
+    }
+
+    private void buildScaleTable() {
+        mScaleTableValid = mScale != null && mLineWidth > 0;
+        if (mScaleTableValid) {
+            mScaleTable.build(mScale, mModel.getMin(), mModel.getMax(), mLineWidth + 1);
+        }
+    }
+
+    private float scaledValue(float percent) {
+        if (mScaleTableValid) {
+            return mScaleTable.valueAt(percent);
+        }
+        return (float) mScale.valueAt(percent, mModel.getMin(), mModel.getMax());
+    }
+
+    /**
+     * {@link RangeModel#percentOf(float)}, or the position through the scale snapped to cells.
+     */
+    private float percentOf(float value) {
+        if (mScale == null) {
+            return mModel.percentOf(value);
+        }
+        if (value < mModel.getMin() || value > mModel.getMax()) {
+            throw new IllegalArgumentException("setValue() value out of range . #value:" + value
+                    + " #min:" + mModel.getMin() + " #max:" + mModel.getMax());
+        }
+        return scaledPercent(value);
+    }
+
+    private float scaledPercent(float value) {
+        float percent = mScaleTableValid ? mScaleTable.positionOf(value)
+                : (float) mScale.positionOf(value, mModel.getMin(), mModel.getMax());
+        if (mModel.isCellsMode()) {
+            percent = Math.round(percent * mModel.getCellsCount()) * mModel.getCellsPercent();
+        }
+        return RangeModel.clamp(percent);
+    }
+
+    private LinearGradient createLineShader() {
+        // unit gradient, stretched over the selected range with a local matrix on every frame
+        return new LinearGradient(0, 0, 1, 0, mLineShadeColorStart, mLineShadeColorEnd, Shader.TileMode.CLAMP);
+    }
+
     public void setValue(float min, float max) {
-        min = min + mOffsetValue;
-        max = max + mOffsetValue;
+        if (mLongRange != null) {
+            setLongValue(Math.round((double) min), Math.round((double) max));
+            return;
+        }
+        cancelValueAnimation();
+        float minPercent = percentOf(min);
+        float maxPercent = percentOf(max);
+        mLeftSeekBar.mCurrPercent = minPercent;
+        mRightSeekBar.mCurrPercent = maxPercent;
+        fitMiddleThumbs();
+        invalidateRange(null);
+    }
+
+    /**
+     * Like {@link #setValue(float, float)}, optionally moving the thumbs there over a short animation.
+     * Listeners are not notified, as with setValue. Touching the bar or setting another value stops the
+     * animation; the thumbs then stay where they are.
+     *
+     * @throws IllegalArgumentException right away if the values are not valid, see {@link #setValue(float, float)}
+     */
+    public void setValue(float min, float max, boolean animate) {
+        if (mLongRange != null) {
+            setLongValue(Math.round((double) min), Math.round((double) max), animate);
+            return;
+        }
+        if (!animate || !canAnimateValue()) {
+            setValue(min, max);
+            return;
+        }
+        float minPercent = percentOf(min);
+        float maxPercent = percentOf(max);
+        startValueAnimation(minPercent, maxPercent);
+    }
+
+    /**
+     * Long mode counterpart of {@link #setValue(float, float, boolean)}.
+     */
+    public void setLongValue(long min, long max, boolean animate) {
+        if (!animate || !canAnimateValue()) {
+            setLongValue(min, max);
+            return;
+        }
+        if (mLongRange == null) {
+            throw new IllegalStateException("setLongValue() requires setLongRules() first");
+        }
+        startLongValueAnimation(mLongRange.indexOf(min), mLongRange.indexOf(max));
+    }
+
+    public boolean isValueAnimating() {
+        return mValueAnimating;
+    }
+
+    private boolean canAnimateValue() {
+        return getWindowToken() != null && getWidth() > 0;
+    }
+
+    private void startValueAnimation(float toMin, float toMax) {
+        mAnimFromMin = mLeftSeekBar.mCurrPercent;
+        mAnimFromMax = mRightSeekBar.mCurrPercent;
+        mAnimToMin = toMin;
+        mAnimToMax = toMax;
+        startValueAnimation();
+    }
+
+    private void startLongValueAnimation(long toMinIndex, long toMaxIndex) {
+        mAnimFromMinIndex = mLeftSeekBar.mIndex;
+        mAnimFromMaxIndex = mRightSeekBar.mIndex;
+        mAnimToMinIndex = toMinIndex;
+        mAnimToMaxIndex = toMaxIndex;
+        startValueAnimation();
+    }
+
+    private void startValueAnimation() {
+        // taken from the first frame, so a bar started during a frame does not skip ahead
+        mValueAnimationStart = 0;
+        mValueAnimating = true;
+        FrameClock.getInstance().add(mValueAnimationClient);
+    }
+
+    /**
+     * @return false once the animation reached its end
+     */
+    private boolean stepValueAnimation(long frameTimeNanos) {
+        if (mValueAnimationStart == 0) {
+            mValueAnimationStart = frameTimeNanos;
+        }
+        float fraction = Math.min(1, (frameTimeNanos - mValueAnimationStart) / (VALUE_ANIMATION_DURATION * 1e6f));
+        // decelerate
+        applyValueAnimation(1 - (1 - fraction) * (1 - fraction));
+        invalidateRange(null);
+        if (fraction >= 1) {
+            mValueAnimating = false;
+            return false;
+        }
+        return true;
+    }
 
-        if (min < mMinValue) {
-            throw new IllegalArgumentException("setValue() min < (preset min - offsetValue) . #min:" + min
-                    + " #preset min:" + mMinValue + " #offsetValue:" + mOffsetValue);
+    /**
+     * Both ends move linearly between valid ranges, so every step keeps their order and the reserve. At 1
+     * the targets are assigned as they are, not computed.
+     */
+    private void applyValueAnimation(float fraction) {
+        if (mLongRange != null) {
+            mLeftSeekBar.setIndex(LongRange.interpolate(mAnimFromMinIndex, mAnimToMinIndex, fraction));
+            mRightSeekBar.setIndex(LongRange.interpolate(mAnimFromMaxIndex, mAnimToMaxIndex, fraction));
+        } else if (fraction >= 1) {
+            mLeftSeekBar.mCurrPercent = mAnimToMin;
+            mRightSeekBar.mCurrPercent = mAnimToMax;
+        } else {
+            mLeftSeekBar.mCurrPercent = mAnimFromMin + (mAnimToMin - mAnimFromMin) * fraction;
+            mRightSeekBar.mCurrPercent = mAnimFromMax + (mAnimToMax - mAnimFromMax) * fraction;
+        }
+        fitMiddleThumbs();
+    }
+
+    /**
+     * Stop a running value animation, leaving the thumbs where they are.
+     */
+    private void cancelValueAnimation() {
+        if (mValueAnimating) {
+            mValueAnimating = false;
+            FrameClock.getInstance().remove(mValueAnimationClient);
         }
-        if (max > mMaxValue) {
-            throw new IllegalArgumentException("setValue() max > (preset max - offsetValue) . #max:" + max
-                    + " #preset max:" + mMaxValue + " #offsetValue:" + mOffsetValue);
+    }
+
+    /**
+     * Stop a running value animation, jumping to its end.
+     */
+    private void finishValueAnimation() {
+        if (mValueAnimating) {
+            applyValueAnimation(1);
+            cancelValueAnimation();
         }
+    }
 
-        if (mReserveCount > 1) {
-            if ((min - mMinValue) % mReserveCount != 0) {
-                throw new IllegalArgumentException("setValue() (min - preset min) % reserveCount != 0 . #min:"
-                        + min + " #preset min:" + mMinValue + "#reserveCount:" + mReserveCount + "#reserve:" + mReserveValue);
+    /**
+     * Apply a whole precomputed state in one step, e.g. when binding a list row. The state was validated
+     * when it was created, so nothing is validated or thrown here, unchanged parts are not touched and
+     * no listener is called.
+     */
+    public void bind(RangeSeekBarState state) {
+        cancelPendingDispatch();
+        cancelValueAnimation();
+        for (SeekBar bar : mThumbs) {
+            bar.finishMaterial();
+        }
+        mMoving = false;
+        mTouchSeekBar = null;
+        if (mRecycled) {
+            reacquireBitmaps();
+        }
+        RangeModel model = state.getModel();
+        boolean modelChanged = model != mModel || mLongRange != null;
+        boolean trackChanged = mModel == null || mLongRange != null
+                || model.getCellsCount() != mModel.getCellsCount();
+        if (modelChanged) {
+            mModel = model;
+            mLongRange = null;
+            mTrackCacheDirty |= trackChanged;
+            if (trackChanged) {
+                mTrack.invalidateTicks();
+            }
+            resetTipsLabels();
+            buildScaleTable();
+            if (mHistogram.hasData()) {
+                binHistogram();
             }
-            if ((max - mMinValue) % mReserveCount != 0) {
-                throw new IllegalArgumentException("setValue() (max - preset min) % reserveCount != 0 . #max:"
-                        + max + " #preset min:" + mMinValue + "#reserveCount:" + mReserveCount + "#reserve:" + mReserveValue);
+        }
+        if (state.hasColors()) {
+            if (state.getEdgeColor() != mLineEdgeColor) {
+                mLineEdgeColor = state.getEdgeColor();
+                mTrackCacheDirty = true;
+                trackChanged = true;
+            }
+            if (state.getShadeStartColor() != mLineShadeColorStart || state.getShadeEndColor() != mLineShadeColorEnd) {
+                mLineShadeColorStart = state.getShadeStartColor();
+                mLineShadeColorEnd = state.getShadeEndColor();
+                mLineShader = createLineShader();
             }
-            mLeftSeekBar.mCurrPercent = (min - mMinValue) / mReserveCount * mCellsPercent;
-            mRightSeekBar.mCurrPercent = (max - mMinValue) / mReserveCount * mCellsPercent;
+        }
+        if (mScale != null) {
+            mLeftSeekBar.mCurrPercent = scaledPercent(state.getSelectedMin());
+            mRightSeekBar.mCurrPercent = scaledPercent(state.getSelectedMax());
         } else {
-            mLeftSeekBar.mCurrPercent = (min - mMinValue) / (mMaxValue - mMinValue);
-            mRightSeekBar.mCurrPercent = (max - mMinValue) / (mMaxValue - mMinValue);
+            mLeftSeekBar.mCurrPercent = state.getMinPercent();
+            mRightSeekBar.mCurrPercent = state.getMaxPercent();
+        }
+        fitMiddleThumbs();
+        markRangeDispatched();
+        if (trackChanged) {
+            invalidateAll();
+        } else {
+            invalidateRange(null);
         }
-        invalidate();
+    }
+
+    /**
+     * Capture the rules, selection and colors, e.g. to store a row back into its adapter item.
+     *
+     * @throws IllegalStateException in long mode
+     */
+    public RangeSeekBarState getState() {
+        if (mLongRange != null) {
+            throw new IllegalStateException("getState() is not available in long mode");
+        }
+        return new RangeSeekBarState(mModel, getSelectedMin(), getSelectedMax(),
+                mLeftSeekBar.mCurrPercent, mRightSeekBar.mCurrPercent,
+                mLineEdgeColor, mLineShadeColorStart, mLineShadeColorEnd);
     }
 
     public void setRules(float min, float max) {
-        setRules(min, max, mReserveCount, mCellsCount);
+        setRules(min, max, mModel.getReserveCount(), mModel.getCellsCount());
+    }
+
+    public void setRules(float min, float max, float reserve, int cells) {
+        RangeModel model = new RangeModel(min, max, reserve, cells);
+        cancelValueAnimation();
+        boolean trackChanged = mModel == null || cells != mModel.getCellsCount();
+        mModel = model;
+        mLongRange = null;
+        mTrackCacheDirty |= trackChanged;
+        if (trackChanged) {
+            mTrack.invalidateTicks();
+        }
+        resetTipsLabels();
+        mRightSeekBar.mCurrPercent = model.fitRight(mLeftSeekBar.mCurrPercent, mRightSeekBar.mCurrPercent);
+        mLeftSeekBar.mCurrPercent = model.fitLeft(mLeftSeekBar.mCurrPercent, mRightSeekBar.mCurrPercent);
+        fitMiddleThumbs();
+        buildScaleTable();
+        if (mHistogram.hasData()) {
+            binHistogram();
+        }
+        if (trackChanged) {
+            invalidateAll();
+        } else {
+            invalidateRange(null);
+        }
+    }
+
+    /**
+     * Switch to the exact 64-bit mode: values go from min to max in whole steps, e.g. epoch milliseconds
+     * or prices in cents, and the selected values are read with {@link #getSelectedMinLong()} and
+     * {@link #getSelectedMaxLong()}. {@link #setRules(float, float, float, int)} switches back.
+     *
+     * @param step    (max - min) must be a multiple of step
+     * @param reserve minimum distance between the selected min and max, rounded up to whole steps
+     */
+    public void setLongRules(long min, long max, long step, long reserve) {
+        LongRange range = new LongRange(min, max, step, reserve);
+        cancelValueAnimation();
+        long minValue = mLongRange != null ? getSelectedMinLong() : min;
+        long maxValue = mLongRange != null ? getSelectedMaxLong() : max;
+        mLongRange = range;
+        mLeftSeekBar.setIndex(clampIndex(minValue));
+        mRightSeekBar.setIndex(range.clampRight(clampIndex(maxValue), mLeftSeekBar.mIndex));
+        mLeftSeekBar.setIndex(range.clampLeft(mLeftSeekBar.mIndex, mRightSeekBar.mIndex));
+        for (int i = 1; i < mThumbs.length - 1; i++) {
+            mThumbs[i].setIndex(Math.round(mThumbs[i].mCurrPercent * (double) range.getSteps()));
+        }
+        fitMiddleThumbs();
+        if (mModel.isCellsMode()) {
+            // long mode uses the continuous layout
+            mModel = new RangeModel(0, 1, 0, 1);
+            mTrackCacheDirty = true;
+            mTrack.invalidateTicks();
+            if (getWidth() > 0) {
+                layoutSeekBars(getWidth(), getHeight());
+            }
+        }
+        resetTipsLabels();
+        if (mHistogram.hasData()) {
+            binHistogram();
+        }
+        invalidateAll();
+    }
+
+    private long clampIndex(long value) {
+        if (value <= mLongRange.getMin()) {
+            return 0;
+        }
+        if (value >= mLongRange.getMax()) {
+            return mLongRange.getSteps();
+        }
+        return (value - mLongRange.getMin()) / mLongRange.getStep();
+    }
+
+    /**
+     * Long mode counterpart of {@link #setValue(float, float)}, only valid after
+     * {@link #setLongRules(long, long, long, long)}.
+     */
+    public void setLongValue(long min, long max) {
+        if (mLongRange == null) {
+            throw new IllegalStateException("setLongValue() requires setLongRules() first");
+        }
+        cancelValueAnimation();
+        long minIndex = mLongRange.indexOf(min);
+        long maxIndex = mLongRange.indexOf(max);
+        mLeftSeekBar.setIndex(minIndex);
+        mRightSeekBar.setIndex(maxIndex);
+        fitMiddleThumbs();
+        invalidateRange(null);
+    }
+
+    public boolean isLongMode() {
+        return mLongRange != null;
+    }
+
+    public long getSelectedMinLong() {
+        return mLongRange != null ? mLongRange.valueAt(mLeftSeekBar.mIndex) : (long) getSelectedMin();
+    }
+
+    public long getSelectedMaxLong() {
+        return mLongRange != null ? mLongRange.valueAt(mRightSeekBar.mIndex) : (long) getSelectedMax();
+    }
+
+    public float[] getCurrentRange() {
+        return getCurrentRange(new float[2]);
+    }
+
+    /**
+     * Allocation-free variant of {@link #getCurrentRange()}.
+     *
+     * @param out array of at least 2, receives the selected min and max
+     * @return out
+     */
+    public float[] getCurrentRange(float[] out) {
+        out[0] = getSelectedMin();
+        out[1] = getSelectedMax();
+        return out;
+    }
+
+    public float getSelectedMin() {
+        return mLeftSeekBar.getValue();
+    }
+
+    public float getSelectedMax() {
+        return mRightSeekBar.getValue();
+    }
+
+    /**
+     * Split the selection into count - 1 segments with count thumbs, e.g. for time of day buckets.
+     * Every gap between neighbouring thumbs keeps the reserve. The thumbs are spread evenly; the first
+     * and last ones still define the selected min and max.
+     *
+     * @param count at least 2, the default
+     */
+    public void setThumbCount(int count) {
+        if (count < 2) {
+            throw new IllegalArgumentException("setThumbCount() count must be at least 2 ! #count:" + count);
+        }
+        cancelValueAnimation();
+        boolean fits = mLongRange != null ? mLongRange.getReserveSteps() <= mLongRange.getSteps() / (count - 1)
+                : mModel.isCellsMode() ? mModel.getReserveCount() * (count - 1) <= mModel.getCellsCount()
+                : mModel.getReservePercent() * (count - 1) <= 1;
+        if (!fits) {
+            throw new IllegalArgumentException("setThumbCount() reserve does not fit between the thumbs ! #count:"
+                    + count + " #reserve:" + (mLongRange != null ? mLongRange.getReserve() : mModel.getReserve()));
+        }
+        SeekBar[] thumbs = new SeekBar[count];
+        thumbs[0] = mLeftSeekBar;
+        thumbs[count - 1] = mRightSeekBar;
+        for (int i = 1; i < count - 1; i++) {
+            thumbs[i] = i < mThumbs.length - 1 ? mThumbs[i] : new SeekBar();
+        }
+        for (int i = count - 1; i < mThumbs.length - 1; i++) {
+            mThumbs[i].releaseBitmaps(getResources());
+        }
+        mThumbs = thumbs;
+        spreadThumbs();
+        resetTipsLabels();
+        if (getWidth() > 0) {
+            layoutSeekBars(getWidth(), getHeight());
+        }
+        invalidateAll();
+    }
+
+    public int getThumbCount() {
+        return mThumbs.length;
+    }
+
+    /**
+     * @param index 0 is the selected min, {@link #getThumbCount()} - 1 the selected max
+     */
+    public float getThumbValue(int index) {
+        return mThumbs[index].getValue();
+    }
+
+    public long getThumbValueLong(int index) {
+        return mLongRange != null ? mLongRange.valueAt(mThumbs[index].mIndex) : (long) getThumbValue(index);
+    }
+
+    /**
+     * Set every thumb at once, see {@link #setValue(float, float)} for the accepted values.
+     *
+     * @param values ascending, one per thumb
+     * @throws IllegalArgumentException if a value is less than the one before it
+     */
+    public void setThumbValues(float[] values) {
+        if (values.length != mThumbs.length) {
+            throw new IllegalArgumentException("setThumbValues() one value per thumb ! #values:" + values.length
+                    + " #thumbs:" + mThumbs.length);
+        }
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] < values[i - 1]) {
+                throw new IllegalArgumentException("setThumbValues() values must ascend ! #index:" + i
+                        + " #value:" + values[i] + " #previous:" + values[i - 1]);
+            }
+        }
+        if (mLongRange != null) {
+            long[] longValues = new long[values.length];
+            for (int i = 0; i < values.length; i++) {
+                longValues[i] = Math.round((double) values[i]);
+            }
+            setLongThumbValues(longValues);
+            return;
+        }
+        cancelValueAnimation();
+        for (int i = 0; i < values.length; i++) {
+            mThumbs[i].mCurrPercent = percentOf(values[i]);
+        }
+        fitMiddleThumbs();
+        invalidateRange(null);
+    }
+
+    /**
+     * Long mode counterpart of {@link #setThumbValues(float[])}.
+     */
+    public void setLongThumbValues(long[] values) {
+        if (mLongRange == null) {
+            throw new IllegalStateException("setLongThumbValues() requires setLongRules() first");
+        }
+        if (values.length != mThumbs.length) {
+            throw new IllegalArgumentException("setLongThumbValues() one value per thumb ! #values:" + values.length
+                    + " #thumbs:" + mThumbs.length);
+        }
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] < values[i - 1]) {
+                throw new IllegalArgumentException("setLongThumbValues() values must ascend ! #index:" + i
+                        + " #value:" + values[i] + " #previous:" + values[i - 1]);
+            }
+        }
+        cancelValueAnimation();
+        for (int i = 0; i < values.length; i++) {
+            mThumbs[i].setIndex(mLongRange.indexOf(values[i]));
+        }
+        fitMiddleThumbs();
+        invalidateRange(null);
+    }
+
+    private void spreadThumbs() {
+        int last = mThumbs.length - 1;
+        for (int i = 0; i <= last; i++) {
+            SeekBar bar = mThumbs[i];
+            bar.mPosition = i;
+            if (mLongRange != null) {
+                long steps = mLongRange.getSteps();
+                // steps * i / last without overflow
+                bar.setIndex(steps / last * i + steps % last * i / last);
+            } else if (mModel.isCellsMode()) {
+                bar.mCurrPercent = Math.round((float) i * mModel.getCellsCount() / last) * mModel.getCellsPercent();
+            } else {
+                bar.mCurrPercent = (float) i / last;
+            }
+        }
+    }
+
+    /**
+     * Push the thumbs between the first and the last one apart until every gap keeps the reserve. If the
+     * first and last thumbs are too close for that, e.g. after setValue(), the ones between are spread
+     * evenly instead, so the thumbs always stay in order.
+     */
+    private void fitMiddleThumbs() {
+        int last = mThumbs.length - 1;
+        if (last < 2) {
+            return;
+        }
+        if (mLongRange != null) {
+            long reserve = mLongRange.getReserveSteps();
+            long first = mThumbs[0].mIndex;
+            long span = mThumbs[last].mIndex - first;
+            if (span / last < reserve) {
+                for (int i = 1; i < last; i++) {
+                    // first + span * i / last without overflow
+                    mThumbs[i].setIndex(first + span / last * i + span % last * i / last);
+                }
+                return;
+            }
+            for (int i = 1; i < last; i++) {
+                mThumbs[i].setIndex(Math.max(mThumbs[i].mIndex, mThumbs[i - 1].mIndex + reserve));
+            }
+            for (int i = last - 1; i > 0; i--) {
+                mThumbs[i].setIndex(Math.min(mThumbs[i].mIndex, mThumbs[i + 1].mIndex - reserve));
+            }
+            return;
+        }
+        float reserve = mModel.getReserveSpan();
+        float first = mThumbs[0].mCurrPercent;
+        float span = mThumbs[last].mCurrPercent - first;
+        if (span < reserve * last) {
+            for (int i = 1; i < last; i++) {
+                float percent = first + span * i / last;
+                if (mModel.isCellsMode()) {
+                    percent = Math.round(percent * mModel.getCellsCount()) * mModel.getCellsPercent();
+                }
+                mThumbs[i].mCurrPercent = percent;
+            }
+            return;
+        }
+        for (int i = 1; i < last; i++) {
+            mThumbs[i].mCurrPercent = Math.max(mThumbs[i].mCurrPercent, mThumbs[i - 1].mCurrPercent + reserve);
+        }
+        for (int i = last - 1; i > 0; i--) {
+            mThumbs[i].mCurrPercent = Math.min(mThumbs[i].mCurrPercent, mThumbs[i + 1].mCurrPercent - reserve);
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int widthSize = MeasureSpec.getSize(widthMeasureSpec);
+        int heightSize = MeasureSpec.getSize(heightMeasureSpec);
+        if (heightSize * 1.8f > widthSize) {
+            setMeasuredDimension(widthSize, (int) (widthSize / 1.8f));
+        } else {
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        }
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        layoutSeekBars(w, h);
+        loadPendingBitmaps();
+    }
+
+    private void layoutSeekBars(int w, int h) {
+        int baseLineLeft = 80;
+        int baseLineBottom = h * 2 / 3;
+
+        mLineLeft = baseLineLeft;
+        mLineRight = w - baseLineLeft;
+        mLineWidth = mLineRight - mLineLeft;
+
+        mLineTop = baseLineBottom - mLineHeight / 2;
+        mLineBottom = baseLineBottom + mLineHeight / 2;
+
+        mTrack.layout(mLineLeft, mLineTop, mLineRight, mLineBottom);
+        mLineCorners = mTrack.getCorners();
+        mTrackCacheDirty = true;
+        mHistogram.layout(mLineLeft, mLineWidth, mLineTop - mLineCorners);
+        buildScaleTable();
+
+        int last = mThumbs.length - 1;
+        for (int i = 0; i <= last; i++) {
+            // middle thumbs look like the left one
+            mThumbs[i].onSizeChanged(baseLineBottom, h, i == last ? mRightSeekBarResId : mLeftSeekBarResId,
+                    mTipsResId, getContext());
+        }
+        for (SeekBar bar : mThumbs) {
+            bar.layout(mLineLeft, mLineWidth, mModel.isCellsMode(), mLeftSeekBar.mWidth, last);
+        }
+    }
+
+    /**
+     * In async mode decode the missing thumb and tips bitmaps in the background, then lay out again. Only
+     * called on size or resource changes, never from the delivery, so a resource that cannot be decoded is
+     * tried once and its thumb keeps the default look.
+     */
+    private void loadPendingBitmaps() {
+        cancelBitmapLoad();
+        if (mAsyncBitmapLoading && (mLeftSeekBar.hasPendingBitmaps() || mRightSeekBar.hasPendingBitmaps())) {
+            mBitmapLoad = BitmapLoader.load(getResources(),
+                    new int[]{mLeftSeekBarResId, mRightSeekBarResId, mTipsResId, mTipsResId},
+                    new BitmapLoader.Callback() {
+                        @Override
+                        public void onBitmapsLoaded(int[] resIds, Bitmap[] bitmaps, long decodeNanos) {
+                            mBitmapLoad = null;
+                            if (mMetrics != null) {
+                                mMetrics.recordBitmapDecode(decodeNanos);
+                            }
+                            mLeftSeekBar.setBitmaps(bitmaps[0], bitmaps[2]);
+                            mRightSeekBar.setBitmaps(bitmaps[1], bitmaps[3]);
+                            layoutSeekBars(getWidth(), getHeight());
+                            invalidateAll();
+                        }
+                    });
+        }
+    }
+
+    private void cancelBitmapLoad() {
+        if (mBitmapLoad != null) {
+            mBitmapLoad.cancel();
+            mBitmapLoad = null;
+        }
+    }
+
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        reacquireBitmaps();
+    }
+
+    /**
+     * Take back the bitmaps and atlases released by {@link #recycle()}. Geometry is unchanged so only the
+     * references are restored.
+     */
+    private void reacquireBitmaps() {
+        mRecycled = false;
+        for (SeekBar bar : mThumbs) {
+            bar.acquireBitmaps(getResources());
+            bar.updateThumbAtlas();
+        }
+        if (mLeftSeekBar.hasPendingBitmaps() || mRightSeekBar.hasPendingBitmaps()) {
+            // evicted meanwhile in async mode, fall back to the placeholder until reloaded
+            layoutSeekBars(getWidth(), getHeight());
+            loadPendingBitmaps();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        recycle();
+    }
+
+    /**
+     * Return the shared resources of this bar: layer bitmaps go back to a pool for bars of the same size,
+     * thumb bitmaps and atlases are released to their caches, pending work is cancelled and a value animation
+     * jumps to its end. Called on detach; call it from RecyclerView.Adapter#onViewRecycled for rows kept
+     * attached. Everything is reacquired on the next attach, {@link #bind(RangeSeekBarState)} or draw.
+     */
+    public void recycle() {
+        cancelPendingDispatch();
+        finishValueAnimation();
+        if (mRangeQuery != null) {
+            mRangeQuery.cancel();
+        }
+        cancelBitmapLoad();
+        for (SeekBar bar : mThumbs) {
+            bar.finishMaterial();
+        }
+        releaseTrackCache();
+        mHistogram.release();
+        for (SeekBar bar : mThumbs) {
+            bar.releaseBitmaps(getResources());
+        }
+        mRecycled = true;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (mRecycled) {
+            reacquireBitmaps();
+        }
+        long start = mMetrics != null ? System.nanoTime() : 0;
+        mHistogram.draw(canvas, selectionLeft(), selectionRight());
+        if (mTrackCacheEnabled && prepareTrackCache()) {
+            canvas.drawBitmap(mTrackCache, 0, mTrackCacheTop, null);
+        } else {
+            drawTrack(canvas);
+        }
+        drawRect(canvas);
+        for (SeekBar bar : mThumbs) {
+            bar.draw(canvas);
+        }
+        if (mMetrics != null) {
+            mMetrics.recordDraw(System.nanoTime() - start);
+            if (mMetricsOverlayEnabled) {
+                drawMetrics(canvas);
+            }
+        }
+    }
+
+    /**
+     * Metrics overlay, built in a reused StringBuilder so the draw path stays allocation-free.
+     */
+    private void drawMetrics(Canvas canvas) {
+        RangeSeekBarMetrics m = mMetrics;
+        float lineHeight = mMetricsPaint.getTextSize() * 1.2f;
+        float y = lineHeight;
+        StringBuilder sb = mMetricsText;
+        sb.setLength(0);
+        sb.append("draw ").append(m.getDrawCount()).append(" avg ").append(m.getAverageDrawTimeNanos() / 1000)
+                .append("us max ").append(m.getMaxDrawTimeNanos() / 1000).append("us");
+        canvas.drawText(sb, 0, sb.length(), 0, y, mMetricsPaint);
+        y += lineHeight;
+        sb.setLength(0);
+        sb.append("touch ").append(m.getTouchEventCount()).append(" batched ").append(m.getTouchSamplesCoalesced())
+                .append(" coalesced ").append(m.getDispatchesCoalesced());
+        canvas.drawText(sb, 0, sb.length(), 0, y, mMetricsPaint);
+        y += lineHeight;
+        sb.setLength(0);
+        sb.append("listener ").append(m.getListenerCallCount()).append(" ")
+                .append(m.getListenerTimeNanos() / 1000).append("us");
+        canvas.drawText(sb, 0, sb.length(), 0, y, mMetricsPaint);
+        y += lineHeight;
+        sb.setLength(0);
+        sb.append("invalidate full ").append(m.getFullInvalidateCount()).append(" partial ")
+                .append(m.getPartialInvalidateCount());
+        canvas.drawText(sb, 0, sb.length(), 0, y, mMetricsPaint);
+        y += lineHeight;
+        sb.setLength(0);
+        sb.append("decode ").append(m.getBitmapDecodeCount()).append(" ")
+                .append(m.getBitmapDecodeTimeNanos() / 1000).append("us");
+        canvas.drawText(sb, 0, sb.length(), 0, y, mMetricsPaint);
+    }
+
+    private void drawTrack(Canvas canvas) {
+        mTrack.drawTrack(canvas, mPaint, mModel, mLineEdgeColor);
+    }
+
+    /**
+     * @return false if there is nothing to cache yet (no size)
+     */
+    private boolean prepareTrackCache() {
+        int width = getWidth();
+        int top = mLineTop - Math.max(mLineCorners, mTrack.getMidDividerHeight());
+        int height = mLineBottom + mLineCorners - top;
+        if (width <= 0 || height <= 0) {
+            return false;
+        }
+        if (mTrackCache == null || mTrackCache.getWidth() != width || mTrackCache.getHeight() != height) {
+            releaseTrackCache();
+            mTrackCache = BitmapPool.obtain(width, height, Bitmap.Config.ARGB_8888);
+            if (mTrackCacheCanvas == null) {
+                mTrackCacheCanvas = new Canvas();
+            }
+            mTrackCacheCanvas.setBitmap(mTrackCache);
+            mTrackCacheDirty = true;
+        }
+        if (mTrackCacheDirty) {
+            mTrackCache.eraseColor(Color.TRANSPARENT);
+            mTrackCacheTop = top;
+            mTrackCacheCanvas.save();
+            mTrackCacheCanvas.translate(0, -top);
+            drawTrack(mTrackCacheCanvas);
+            mTrackCacheCanvas.restore();
+            mTrackCacheDirty = false;
+        }
+        return true;
+    }
+
+    private void releaseTrackCache() {
+        if (mTrackCache != null) {
+            mTrackCacheCanvas.setBitmap(null);
+            BitmapPool.release(mTrackCache);
+            mTrackCache = null;
+        }
     }
 
-    public void setRules(float min, float max, float reserve, int cells) {
-        if (max <= min) {
-            throw new IllegalArgumentException("setRules() max must be greater than min ! #max:" + max + " #min:" + min);
-        }
-        if (min < 0) {
-            mOffsetValue = 0 - min;
-            min = min + mOffsetValue;
-            max = max + mOffsetValue;
-        }
-        mMinValue = min;
-        mMaxValue = max;
-
-        if (reserve < 0) {
-            throw new IllegalArgumentException("setRules() reserve must be greater than zero ! #reserve:" + reserve);
-        }
-        if (reserve >= max - min) {
-            throw new IllegalArgumentException("setRules() reserve must be less than (max - min) ! #reserve:"
-                    + reserve + " #max - min:" + (max - min));
-        }
-        if (cells < 1) {
-            throw new IllegalArgumentException("setRules() cells must be greater than 1 ! #cells:" + cells);
-        }
-        mCellsCount = cells;
-        mCellsPercent = 1f / mCellsCount;
-        mReserveValue = reserve;
-        mReservePercent = reserve / (max - min);
-        mReserveCount = (int) (mReservePercent / mCellsPercent + (mReservePercent % mCellsPercent != 0 ? 1 : 0));
-        if (mCellsCount > 1) {
-            if (mLeftSeekBar.mCurrPercent + mCellsPercent * mReserveCount <= 1
-                    && mLeftSeekBar.mCurrPercent + mCellsPercent * mReserveCount > mRightSeekBar.mCurrPercent) {
-                mRightSeekBar.mCurrPercent = mLeftSeekBar.mCurrPercent + mCellsPercent * mReserveCount;
-            } else if (mRightSeekBar.mCurrPercent - mCellsPercent * mReserveCount >= 0
-                    && mRightSeekBar.mCurrPercent - mCellsPercent * mReserveCount < mLeftSeekBar.mCurrPercent) {
-                mLeftSeekBar.mCurrPercent = mRightSeekBar.mCurrPercent - mCellsPercent * mReserveCount;
+    /**
+     * Invalidate only what moved instead of the whole view: the column of the moved thumb from where it
+     * was last drawn to where it is now, down from its tips or the histogram edge it drags, plus the band
+     * of the selected line, whose gradient is stretched between the thumbs. Without a thumb, e.g. after
+     * setValue(), the columns of all thumbs. Showing or hiding the tips invalidates everything.
+     */
+    private void invalidateRange(SeekBar moved) {
+        if (Float.isNaN(mDrawnSelectionLeft) || mMetricsOverlayEnabled) {
+            invalidateAll();
+            return;
+        }
+        RectF dirty = mDirtyBounds;
+        int grow = mLineHeight / 2 + 1;
+        dirty.set(Math.min(mDrawnSelectionLeft, selectionLeft()), mLineTop - grow,
+                Math.max(mDrawnSelectionRight, selectionRight()), mLineBottom + grow);
+        if (moved != null) {
+            if (!unionThumbColumn(dirty, moved)) {
+                invalidateAll();
+                return;
             }
         } else {
-            if (mLeftSeekBar.mCurrPercent + mReservePercent <= 1
-                    && mLeftSeekBar.mCurrPercent + mReservePercent > mRightSeekBar.mCurrPercent) {
-                mRightSeekBar.mCurrPercent = mLeftSeekBar.mCurrPercent + mReservePercent;
-            } else if (mRightSeekBar.mCurrPercent - mReservePercent >= 0
-                    && mRightSeekBar.mCurrPercent - mReservePercent < mLeftSeekBar.mCurrPercent) {
-                mLeftSeekBar.mCurrPercent = mRightSeekBar.mCurrPercent - mReservePercent;
+            for (SeekBar bar : mThumbs) {
+                if (!unionThumbColumn(dirty, bar)) {
+                    invalidateAll();
+                    return;
+                }
             }
         }
-        invalidate();
+        dirty.roundOut(mDirtyRect);
+        invalidate(mDirtyRect);
+        if (mMetrics != null) {
+            mMetrics.recordInvalidate(true);
+        }
     }
 
-    public float[] getCurrentRange() {
-        float range = mMaxValue - mMinValue;
-        return new float[]{-mOffsetValue + mMinValue + range * mLeftSeekBar.mCurrPercent,
-                -mOffsetValue + mMinValue + range * mRightSeekBar.mCurrPercent};
+    /**
+     * @return false if the thumb was not drawn since the last full invalidate
+     */
+    private boolean unionThumbColumn(RectF dirty, SeekBar bar) {
+        if (Float.isNaN(bar.mDrawnLeft)) {
+            return false;
+        }
+        float top = Math.min(bar.boundsTop(), mHistogram.getTop());
+        dirty.union(Math.min(bar.mDrawnLeft, bar.boundsLeft()), top,
+                Math.max(bar.mDrawnRight, bar.boundsRight()), getHeight());
+        return true;
     }
 
-    @Override
-    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        int widthSize = MeasureSpec.getSize(widthMeasureSpec);
-        int heightSize = MeasureSpec.getSize(heightMeasureSpec);
-        if (heightSize * 1.8f > widthSize) {
-            setMeasuredDimension(widthSize, (int) (widthSize / 1.8f));
-        } else {
-            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+    private void invalidateAll() {
+        invalidate();
+        // nothing drawn before the next frame can be relied on for a partial invalidate
+        mDrawnSelectionLeft = mDrawnSelectionRight = Float.NaN;
+        for (SeekBar bar : mThumbs) {
+            bar.mDrawnLeft = bar.mDrawnRight = Float.NaN;
+        }
+        if (mMetrics != null) {
+            mMetrics.recordInvalidate(false);
         }
     }
 
-    @Override
-    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
-        super.onSizeChanged(w, h, oldw, oldh);
-
-        int baseLineLeft = 80;
-        int baseLineBottom = h * 2 / 3;
-
-        mLineLeft = baseLineLeft;
-        mLineRight = w - baseLineLeft;
-        mLineWidth = mLineRight - mLineLeft;
-
-        mLineTop = baseLineBottom - mLineHeight / 2;
-        mLineBottom = baseLineBottom + mLineHeight / 2;
-
-        mLine.set(mLineLeft, mLineTop, mLineRight, mLineBottom);
-        mLineCorners = (int) ((mLineBottom - mLineTop) * 0.45f);
-
-        mLeftSeekBar.onSizeChanged(baseLineLeft, baseLineBottom, h, mLineWidth, mCellsCount > 1,
-                mLeftSeekBarResId, mTipsResId, getContext());
-        mRightSeekBar.onSizeChanged(baseLineLeft, baseLineBottom, h, mLineWidth, mCellsCount > 1,
-                mRightSeekBarResId, mTipsResId, getContext());
-
-        if (mCellsCount == 1) {
-            mRightSeekBar.mLeft += mLeftSeekBar.mWidth;
-            mRightSeekBar.mRight += mLeftSeekBar.mWidth;
-        }
+    /**
+     * @return the region passed to the last partial invalidate, for tests and debugging
+     */
+    Rect getLastDirtyRect() {
+        return mDirtyRect;
     }
 
+    private float selectionLeft() {
+        return mLeftSeekBar.center();
+    }
 
-    @Override
-    protected void onDraw(Canvas canvas) {
-        super.onDraw(canvas);
-        mPaint.setStyle(Paint.Style.FILL);
-        mPaint.setColor(mLineEdgeColor);
-        mPaint.setShader(null);
-        if (mCellsPercent > 0) {
-            mPaint.setStrokeWidth(mLineCorners * 0.3f);
-            for (int i = 1; i < mCellsCount; i++) {
-                canvas.drawLine(mLineLeft + i * mCellsPercent * mLineWidth, mLineTop - mLineCorners,
-                        mLineLeft + i * mCellsPercent * mLineWidth, mLineBottom + mLineCorners, mPaint);
-            }
-            if (mCellsCount == 1) {
-                int midDividerLineHeight = (int) (mDensity * 13);
-                int x = mLineLeft + mLineWidth / 2;
-                canvas.drawLine(x, mLineTop - midDividerLineHeight, x, mLineTop, mPaint);
-            }
-        }
-        canvas.drawRoundRect(mLine, mLineCorners, mLineCorners, mPaint);
-        drawRect(canvas);
-        mLeftSeekBar.draw(canvas);
-        mRightSeekBar.draw(canvas);
+    private float selectionRight() {
+        return mRightSeekBar.center();
     }
 
     private void drawRect(Canvas canvas) {
-        float left = mLeftSeekBar.mLeft + mLeftSeekBar.mWidth / 2 + mLeftSeekBar.mLineWidth * mLeftSeekBar.mCurrPercent;
-        float right = mRightSeekBar.mLeft + mRightSeekBar.mWidth / 2 + mRightSeekBar.mLineWidth * mRightSeekBar.mCurrPercent;
-        float top = mMoving ? mLineTop - mLineHeight / 2 : mLineTop;
-        float bottom = mMoving ? mLineBottom + mLineHeight / 2 : mLineBottom;
-        mPaint.setShader(new LinearGradient(left, 0, right, 0,
-                mLineShadeColorStart, mLineShadeColorEnd, Shader.TileMode.CLAMP));
-        canvas.drawRect(left, top, right, bottom, mPaint);
+        float left = selectionLeft();
+        float right = selectionRight();
+        mDrawnSelectionLeft = left;
+        mDrawnSelectionRight = right;
+        mTrack.drawSelection(canvas, mPaint, mLineShader, left, right, mMoving ? mLineHeight / 2 : 0);
     }
 
     @Override
@@ -254,125 +1391,205 @@ public class RangeSeekBar extends View {
         switch (event.getAction()) {
             // down
             case MotionEvent.ACTION_DOWN:
-                boolean touchResult = false;
-                if (mRightSeekBar.mCurrPercent >= 1 && mLeftSeekBar.collide(event)) {
-                    mTouchSeekBar = mLeftSeekBar;
-                    touchResult = true;
-                    mMoving = true;
-                } else if (mRightSeekBar.collide(event)) {
-                    mTouchSeekBar = mRightSeekBar;
-                    touchResult = true;
-                    mMoving = true;
-                } else if (mLeftSeekBar.collide(event)) {
-                    mTouchSeekBar = mLeftSeekBar;
-                    touchResult = true;
+                // a touch takes over from a running setValue animation
+                cancelValueAnimation();
+                SeekBar hit = hitTest(event);
+                boolean touchResult = hit != null;
+                if (touchResult) {
+                    mTouchSeekBar = hit;
                     mMoving = true;
+                    // the tips of every thumb appear
+                    invalidateAll();
+                    mTouchPredictor.reset();
+                    mTouchPredictor.addSample(event.getEventTime(), event.getX());
+                    markRangeDispatched();
+                    if (mTrackingListener != null) {
+                        mTrackingListener.onStartTrackingTouch(this);
+                    }
                 }
                 return touchResult;
 
             // move
             case MotionEvent.ACTION_MOVE:
-                float percent;
-                float x = event.getX();
-
-                mTouchSeekBar.mMaterial = mTouchSeekBar.mMaterial >= 1 ? 1 : mTouchSeekBar.mMaterial + 0.1f;
-
-                if (mTouchSeekBar == mLeftSeekBar) {
-                    if (mCellsCount > 1) {
-                        if (x < mLineLeft) {
-                            percent = 0;
-                        } else {
-                            percent = (x - mLineLeft) * 1f / (mLineWidth);
-                        }
-                        int touchLeftCellsValue = Math.round(percent / mCellsPercent);
-                        int currRightCellsValue = Math.round(mRightSeekBar.mCurrPercent / mCellsPercent);
-                        percent = touchLeftCellsValue * mCellsPercent;
-
-                        while (touchLeftCellsValue > currRightCellsValue - mReserveCount) {
-                            touchLeftCellsValue--;
-                            if (touchLeftCellsValue < 0) {
-                                break;
-                            }
-                            percent = touchLeftCellsValue * mCellsPercent;
-                        }
-                    } else {
-                        if (x < mLineLeft) {
-                            percent = 0;
-                        } else {
-                            percent = (x - mLineLeft) * 1f / (mLineWidth - mRightSeekBar.mWidth);
-                        }
-
-                        if (percent > mRightSeekBar.mCurrPercent - mReservePercent) {
-                            percent = mRightSeekBar.mCurrPercent - mReservePercent;
-                        }
-                    }
-                    mLeftSeekBar.slide(percent);
-                    mMoving = true;
-                } else if (mTouchSeekBar == mRightSeekBar) {
-                    if (mCellsCount > 1) {
-                        if (x > mLineRight) {
-                            percent = 1;
-                        } else {
-                            percent = (x - mLineLeft) * 1f / (mLineWidth);
-                        }
-                        int touchRightCellsValue = Math.round(percent / mCellsPercent);
-                        int currLeftCellsValue = Math.round(mLeftSeekBar.mCurrPercent / mCellsPercent);
-                        percent = touchRightCellsValue * mCellsPercent;
-
-                        while (touchRightCellsValue < currLeftCellsValue + mReserveCount) {
-                            touchRightCellsValue++;
-                            if (touchRightCellsValue > mMaxValue - mMinValue) {
-                                break;
-                            }
-                            percent = touchRightCellsValue * mCellsPercent;
-                        }
-                    } else {
-                        if (x > mLineRight) {
-                            percent = 1;
-                        } else {
-                            percent = (x - mLineLeft - mLeftSeekBar.mWidth) * 1f / (mLineWidth - mLeftSeekBar.mWidth);
-                        }
-                        if (percent < mLeftSeekBar.mCurrPercent + mReservePercent) {
-                            percent = mLeftSeekBar.mCurrPercent + mReservePercent;
-                        }
-                    }
-                    mRightSeekBar.slide(percent);
-                    mMoving = true;
+                if (mMetrics != null) {
+                    mMetrics.recordTouchEvent(event.getHistorySize());
                 }
+                float x = mTouchPredictionMillis > 0 ? predictTouchX(event) : event.getX();
+                mTouchSeekBar.materialPress();
+                slideTouchSeekBar(x);
 
-                if (mChangeListener != null) {
-                    float[] result = getCurrentRange();
-                    mChangeListener.onRangeChanged(this, result[0], result[1]);
+                if (!mCoalesceRangeChanges) {
+                    notifyRangeChanged();
+                } else if (!mDispatchPending) {
+                    mDispatchPending = true;
+                    ViewCompat.postOnAnimation(this, mDispatchRunnable);
+                } else if (mMetrics != null) {
+                    mMetrics.recordDispatchCoalesced();
                 }
-                invalidate();
+                invalidateRange(mTouchSeekBar);
                 break;
 
             // up
             case MotionEvent.ACTION_CANCEL:
             case MotionEvent.ACTION_UP:
+                if (mTouchPredictionMillis > 0) {
+                    // settle on the real release position instead of the last prediction
+                    slideTouchSeekBar(event.getX());
+                }
                 mMoving = false;
+                // the selected line shrinks back and the tips of every thumb disappear
+                invalidateAll();
                 mTouchSeekBar.materialRestore();
 
-                if (mChangeListener != null) {
-                    float[] result = getCurrentRange();
-                    mChangeListener.onRangeChanged(this, result[0], result[1]);
+                if (!mCoalesceRangeChanges) {
+                    notifyRangeChanged();
+                } else {
+                    cancelPendingDispatch();
+                    dispatchRangeChanged();
+                }
+                if (mTrackingListener != null) {
+                    mTrackingListener.onStopTrackingTouch(this);
                 }
                 break;
         }
         return super.onTouchEvent(event);
     }
 
+    /**
+     * @return the thumb nearest to the touch, see {@link ThumbPosition#nearest}, if the touch is on it,
+     * otherwise null
+     */
+    private SeekBar hitTest(MotionEvent event) {
+        SeekBar bar = mThumbs[ThumbPosition.nearest(mThumbs, event.getX())];
+        return bar.collide(event) ? bar : null;
+    }
+
+    private void slideTouchSeekBar(float x) {
+        if (mLongRange != null) {
+            slideTouchSeekBarLong(x);
+            return;
+        }
+        SeekBar bar = mTouchSeekBar;
+        float percent = ThumbPosition.slide(mModel, mThumbs, bar.mPosition, x);
+        if (bar != mLeftSeekBar && bar != mRightSeekBar && percent != bar.mCurrPercent) {
+            mMiddleThumbsMoved = true;
+        }
+        bar.slide(percent);
+        mMoving = true;
+    }
+
+    /**
+     * Long mode: pixel to step index with integer math only, clamped against the other seek bar.
+     */
+    private void slideTouchSeekBarLong(float x) {
+        SeekBar bar = mTouchSeekBar;
+        long index = LongRange.indexAt(Math.round(x) - bar.mOrigin, bar.mTravel,
+                mLongRange.getSteps());
+        int position = bar.mPosition;
+        if (position < mThumbs.length - 1) {
+            index = mLongRange.clampLeft(index, mThumbs[position + 1].mIndex);
+        }
+        if (position > 0) {
+            index = mLongRange.clampRight(index, mThumbs[position - 1].mIndex);
+        }
+        if (bar != mLeftSeekBar && bar != mRightSeekBar && index != bar.mIndex) {
+            mMiddleThumbsMoved = true;
+        }
+        bar.setIndex(index);
+        mMoving = true;
+    }
+
+    /**
+     * Fold every sample batched into the event into the predictor; the move is still handled as a single
+     * state update and invalidate.
+     */
+    private float predictTouchX(MotionEvent event) {
+        for (int i = 0, size = event.getHistorySize(); i < size; i++) {
+            mTouchPredictor.addSample(event.getHistoricalEventTime(i), event.getHistoricalX(i));
+        }
+        mTouchPredictor.addSample(event.getEventTime(), event.getX());
+        return mTouchPredictor.predict(mTouchPredictionMillis);
+    }
+
+    /**
+     * Notify the listener only if the range differs from the last delivered one.
+     */
+    private void dispatchRangeChanged() {
+        boolean unchanged = mLongRange != null
+                ? getSelectedMinLong() == mDispatchedMinLong && getSelectedMaxLong() == mDispatchedMaxLong
+                : getSelectedMin() == mDispatchedMin && getSelectedMax() == mDispatchedMax;
+        if (unchanged && !mMiddleThumbsMoved) {
+            if (mMetrics != null) {
+                mMetrics.recordDispatchCoalesced();
+            }
+            return;
+        }
+        markRangeDispatched();
+        notifyRangeChanged();
+    }
+
+    private void markRangeDispatched() {
+        mDispatchedMin = getSelectedMin();
+        mDispatchedMax = getSelectedMax();
+        mDispatchedMinLong = getSelectedMinLong();
+        mDispatchedMaxLong = getSelectedMaxLong();
+        mMiddleThumbsMoved = false;
+    }
+
+    private void notifyRangeChanged() {
+        long start = mMetrics != null ? System.nanoTime() : 0;
+        if (mChangeListener != null) {
+            mChangeListener.onRangeChanged(this, getSelectedMin(), getSelectedMax());
+        }
+        if (mLongChangeListener != null) {
+            mLongChangeListener.onRangeChanged(this, getSelectedMinLong(), getSelectedMaxLong());
+        }
+        submitRangeQuery();
+        if (mCountChangeListener != null && mDataset != null) {
+            int from = getSelectionStartIndex();
+            int to = getSelectionEndIndex();
+            mCountChangeListener.onRangeCountChanged(this, to - from, from, to);
+        }
+        if (mMetrics != null && (mChangeListener != null || mLongChangeListener != null
+                || mCountChangeListener != null)) {
+            mMetrics.recordListenerCall(System.nanoTime() - start);
+        }
+    }
+
+    private void cancelPendingDispatch() {
+        if (mDispatchPending) {
+            removeCallbacks(mDispatchRunnable);
+            mDispatchPending = false;
+        }
+    }
+
     @Override
     public Parcelable onSaveInstanceState() {
         Parcelable superState = super.onSaveInstanceState();
         SavedState ss = new SavedState(superState);
-        ss.minValue = mMinValue - mOffsetValue;
-        ss.maxValue = mMaxValue - mOffsetValue;
-        ss.reserveValue = mReserveValue;
-        ss.cellsCount = mCellsCount;
-        float[] results = getCurrentRange();
-        ss.currSelectedMin = results[0];
-        ss.currSelectedMax = results[1];
+        ss.minValue = mModel.getMin();
+        ss.maxValue = mModel.getMax();
+        ss.reserveValue = mModel.getReserve();
+        ss.cellsCount = mModel.getCellsCount();
+        if (mLongRange == null) {
+            ss.currSelectedMin = getSelectedMin();
+            ss.currSelectedMax = getSelectedMax();
+        } else {
+            ss.longMode = 1;
+            ss.longMin = mLongRange.getMin();
+            ss.longMax = mLongRange.getMax();
+            ss.longStep = mLongRange.getStep();
+            ss.longReserve = mLongRange.getReserve();
+            ss.longSelectedMin = getSelectedMinLong();
+            ss.longSelectedMax = getSelectedMaxLong();
+        }
+        ss.thumbCount = mThumbs.length;
+        ss.middlePercents = new float[mThumbs.length - 2];
+        ss.middleIndexes = new long[mThumbs.length - 2];
+        for (int i = 1; i < mThumbs.length - 1; i++) {
+            ss.middlePercents[i - 1] = mThumbs[i].mCurrPercent;
+            ss.middleIndexes[i - 1] = mThumbs[i].mIndex;
+        }
         return ss;
     }
 
@@ -380,14 +1597,33 @@ public class RangeSeekBar extends View {
     public void onRestoreInstanceState(Parcelable state) {
         SavedState ss = (SavedState) state;
         super.onRestoreInstanceState(ss.getSuperState());
-        float min = ss.minValue;
-        float max = ss.maxValue;
-        float reserve = ss.reserveValue;
-        int cells = ss.cellsCount;
-        setRules(min, max, reserve, cells);
-        float currSelectedMin = ss.currSelectedMin;
-        float currSelectedMax = ss.currSelectedMax;
-        setValue(currSelectedMin, currSelectedMax);
+        if (ss.longMode != 0) {
+            // the float model of long mode is a placeholder, its values are not valid for it
+            setLongRules(ss.longMin, ss.longMax, ss.longStep, ss.longReserve);
+            if (ss.thumbCount > 2) {
+                setThumbCount(ss.thumbCount);
+            }
+            setLongValue(ss.longSelectedMin, ss.longSelectedMax);
+        } else {
+            float min = ss.minValue;
+            float max = ss.maxValue;
+            float reserve = ss.reserveValue;
+            int cells = ss.cellsCount;
+            setRules(min, max, reserve, cells);
+            if (ss.thumbCount > 2) {
+                setThumbCount(ss.thumbCount);
+            }
+            float currSelectedMin = ss.currSelectedMin;
+            float currSelectedMax = ss.currSelectedMax;
+            setValue(currSelectedMin, currSelectedMax);
+        }
+        for (int i = 1; i < mThumbs.length - 1; i++) {
+            if (mLongRange != null) {
+                mThumbs[i].setIndex(ss.middleIndexes[i - 1]);
+            } else {
+                mThumbs[i].mCurrPercent = ss.middlePercents[i - 1];
+            }
+        }
     }
 
     private class SavedState extends BaseSavedState {
@@ -397,6 +1633,12 @@ public class RangeSeekBar extends View {
         private int cellsCount;
         private float currSelectedMin;
         private float currSelectedMax;
+        private int longMode;
+        private long longMin, longMax, longStep, longReserve;
+        private long longSelectedMin, longSelectedMax;
+        private int thumbCount;
+        private float[] middlePercents;
+        private long[] middleIndexes;
 
         SavedState(Parcelable superState) {
             super(superState);
@@ -410,6 +1652,16 @@ public class RangeSeekBar extends View {
             cellsCount = in.readInt();
             currSelectedMin = in.readFloat();
             currSelectedMax = in.readFloat();
+            longMode = in.readInt();
+            longMin = in.readLong();
+            longMax = in.readLong();
+            longStep = in.readLong();
+            longReserve = in.readLong();
+            longSelectedMin = in.readLong();
+            longSelectedMax = in.readLong();
+            thumbCount = in.readInt();
+            middlePercents = in.createFloatArray();
+            middleIndexes = in.createLongArray();
         }
 
         @Override
@@ -421,73 +1673,206 @@ public class RangeSeekBar extends View {
             out.writeInt(cellsCount);
             out.writeFloat(currSelectedMin);
             out.writeFloat(currSelectedMax);
+            out.writeInt(longMode);
+            out.writeLong(longMin);
+            out.writeLong(longMax);
+            out.writeLong(longStep);
+            out.writeLong(longReserve);
+            out.writeLong(longSelectedMin);
+            out.writeLong(longSelectedMax);
+            out.writeInt(thumbCount);
+            out.writeFloatArray(middlePercents);
+            out.writeLongArray(middleIndexes);
         }
     }
 
     /**
      * SeekBar
      */
-    private class SeekBar {
+    private class SeekBar extends ThumbPosition {
 
         Paint mDefaultPaint;
-        int mWidth, mHeight, mLineWidth;
-        float mCurrPercent;
+        char[] mTipsText = new char[24];
+        int mTipsLength;
+        long mTipsValue = Long.MIN_VALUE;
+        String mTipsLabel;
+        float mTipsWidth;
+        int mHeight;
+        long mIndex;
         int mLeft, mRight, mTop, mBottom, mTipTop;
+        // bounds as last drawn, NaN until drawn after a full invalidate
+        float mDrawnLeft = Float.NaN, mDrawnRight = Float.NaN;
         RadialGradient mShaderBar;
+        Bitmap mThumbAtlas;
+        int mAtlasWidth, mAtlasHeight;
+        Rect mAtlasSrc = new Rect();
+        Rect mAtlasDst = new Rect();
         Bitmap mBitmapBar;
         Bitmap mBitmapTips;
+        int mBarBmpResId, mTipsBmpResId;
 
         float mMaterial = 0;
+        float mMaterialFrom, mMaterialTo;
         ValueAnimator mAnim;
-        final TypeEvaluator<Integer> mTypeEvaluator = new TypeEvaluator<Integer>() {
-            @Override
-            public Integer evaluate(float fraction, Integer startValue, Integer endValue) {
-                int alpha = (int) (Color.alpha(startValue) + fraction * (Color.alpha(endValue) - Color.alpha(startValue)));
-                int red = (int) (Color.red(startValue) + fraction * (Color.red(endValue) - Color.red(startValue)));
-                int green = (int) (Color.green(startValue) + fraction * (Color.green(endValue) - Color.green(startValue)));
-                int blue = (int) (Color.blue(startValue) + fraction * (Color.blue(endValue) - Color.blue(startValue)));
-                return Color.argb(alpha, red, green, blue);
-            }
-        };
 
-        void onSizeChanged(int centerX, int centerY, int parentHeight, int parentLineWidth, boolean cellsMode,
-                int barBmpResId, int tipsBmpResId, Context context) {
+        /**
+         * Size the thumb to its bitmap or the default look; place it with {@link #layout} afterwards.
+         */
+        void onSizeChanged(int centerY, int parentHeight, int barBmpResId, int tipsBmpResId, Context context) {
             mHeight = centerY;
-            if (barBmpResId > 0) {
-                mBitmapBar = BitmapFactory.decodeResource(context.getResources(), barBmpResId);
+            if (mBarBmpResId != barBmpResId || mTipsBmpResId != tipsBmpResId) {
+                releaseBitmaps(context.getResources());
+                mBarBmpResId = barBmpResId;
+                mTipsBmpResId = tipsBmpResId;
+            }
+            acquireBitmaps(context.getResources());
+            if (mBitmapBar != null) {
                 mWidth = mBitmapBar.getWidth();
             } else {
                 mWidth = (int) (mHeight * 0.8f);
-                int radius = (int) (mWidth * 0.5f);
-                int barShadowRadius = (int) (radius * 0.95f);
-                int mShadowCenterX = mWidth / 2;
-                int mShadowCenterY = mHeight / 2;
-                mShaderBar = new RadialGradient(mShadowCenterX, mShadowCenterY, barShadowRadius,
-                        Color.BLACK, Color.TRANSPARENT, Shader.TileMode.CLAMP);
+                mShaderBar = ThumbAtlas.createShadow(mWidth, mHeight);
             }
+            updateThumbAtlas();
             mDefaultPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-            if (tipsBmpResId > 0) {
-                mBitmapTips = BitmapFactory.decodeResource(context.getResources(), tipsBmpResId);
+            if (mBitmapTips != null) {
                 mTipTop = mHeight - mBitmapTips.getHeight();
             }
 
-            mLeft = centerX - mWidth / 2;
-            mRight = centerX + mWidth / 2;
             mTop = mHeight;
             mBottom = parentHeight;
+        }
 
-            if (cellsMode) {
-                mLineWidth = parentLineWidth;
-            } else {
-                mLineWidth = parentLineWidth - mWidth;
+        @Override
+        void layout(int lineLeft, int lineWidth, boolean cellsMode, int firstWidth, int last) {
+            super.layout(lineLeft, lineWidth, cellsMode, firstWidth, last);
+            mLeft = mOrigin - mWidth / 2;
+            mRight = mOrigin + mWidth / 2;
+        }
+
+        /**
+         * In async mode only already decoded bitmaps are taken, the rest is left to a {@link BitmapLoader}.
+         */
+        void acquireBitmaps(Resources res) {
+            long start = mMetrics != null && !mAsyncBitmapLoading && hasPendingBitmaps() ? System.nanoTime() : 0;
+            if (mBitmapBar == null && mBarBmpResId > 0) {
+                mBitmapBar = mAsyncBitmapLoading ? SharedBitmapCache.acquireCached(res, mBarBmpResId)
+                        : SharedBitmapCache.acquire(res, mBarBmpResId);
+            }
+            if (mBitmapTips == null && mTipsBmpResId > 0) {
+                mBitmapTips = mAsyncBitmapLoading ? SharedBitmapCache.acquireCached(res, mTipsBmpResId)
+                        : SharedBitmapCache.acquire(res, mTipsBmpResId);
+            }
+            if (start != 0) {
+                mMetrics.recordBitmapDecode(System.nanoTime() - start);
+            }
+        }
+
+        /**
+         * @return true if a bitmap is missing that may still be decoded
+         */
+        boolean hasPendingBitmaps() {
+            Resources res = getResources();
+            return (mBitmapBar == null && mBarBmpResId > 0 && !SharedBitmapCache.isUndecodable(res, mBarBmpResId))
+                    || (mBitmapTips == null && mTipsBmpResId > 0
+                    && !SharedBitmapCache.isUndecodable(res, mTipsBmpResId));
+        }
+
+        /**
+         * Take over references delivered by a {@link BitmapLoader}, releasing the ones no longer needed.
+         */
+        void setBitmaps(Bitmap bar, Bitmap tips) {
+            Resources res = getResources();
+            if (bar != null) {
+                if (mBitmapBar == null) {
+                    mBitmapBar = bar;
+                } else {
+                    SharedBitmapCache.release(res, mBarBmpResId);
+                }
+            }
+            if (tips != null) {
+                if (mBitmapTips == null) {
+                    mBitmapTips = tips;
+                } else {
+                    SharedBitmapCache.release(res, mTipsBmpResId);
+                }
+            }
+        }
+
+        /**
+         * Hold the atlas matching the current size while the default thumb is drawn with the atlas enabled.
+         */
+        void updateThumbAtlas() {
+            boolean wanted = mThumbAtlasEnabled && mBitmapBar == null && mWidth > 0;
+            if (mThumbAtlas != null && (!wanted || mAtlasWidth != mWidth || mAtlasHeight != mHeight)) {
+                ThumbAtlas.release(mAtlasWidth, mAtlasHeight);
+                mThumbAtlas = null;
+            }
+            if (wanted && mThumbAtlas == null) {
+                mThumbAtlas = ThumbAtlas.acquire(mWidth, mHeight);
+                mAtlasWidth = mWidth;
+                mAtlasHeight = mHeight;
+            }
+        }
+
+        void releaseBitmaps(Resources res) {
+            if (mThumbAtlas != null) {
+                ThumbAtlas.release(mAtlasWidth, mAtlasHeight);
+                mThumbAtlas = null;
+            }
+            if (mBitmapBar != null) {
+                SharedBitmapCache.release(res, mBarBmpResId);
+                mBitmapBar = null;
+            }
+            if (mBitmapTips != null) {
+                SharedBitmapCache.release(res, mTipsBmpResId);
+                mBitmapTips = null;
             }
         }
 
         boolean collide(MotionEvent event) {
-            float x = event.getX();
             float y = event.getY();
-            int offset = (int) (mLineWidth * mCurrPercent);
-            return x > mLeft + offset && x < mRight + offset && y > mTop && y < mBottom;
+            return containsX(event.getX()) && y > mTop && y < mBottom;
+        }
+
+        float boundsLeft() {
+            int offset = (int) (mTravel * mCurrPercent);
+            // room for the pressed scale of the shader bar and anti-aliasing
+            return mLeft + offset - mWidth * 0.1f - 2;
+        }
+
+        /**
+         * @return top of the thumb, or of its tips while they are shown
+         */
+        float boundsTop() {
+            float top = mBitmapBar != null ? mTop - mBitmapBar.getHeight() / 2 : ThumbAtlas.frameTop(mWidth, mTop);
+            if (mMoving && mBitmapTips != null) {
+                top = Math.min(top, mTipTop - mBitmapTips.getHeight());
+            }
+            return top - 2;
+        }
+
+        float boundsRight() {
+            int offset = (int) (mTravel * mCurrPercent);
+            int right = mBitmapTips != null ? Math.max(mRight, mLeft + mBitmapTips.getWidth()) : mRight;
+            return right + offset + mWidth * 0.1f + 2;
+        }
+
+        float getValue() {
+            if (mLongRange != null) {
+                return mLongRange.valueAt(mIndex);
+            }
+            if (mScale != null) {
+                return scaledValue(mCurrPercent);
+            }
+            return mModel.valueOf(mCurrPercent);
+        }
+
+        /**
+         * Long mode position; the percent is only derived for drawing.
+         */
+        void setIndex(long index) {
+            mIndex = index;
+            mCurrPercent = (float) ((double) index / mLongRange.getSteps());
         }
 
         void slide(float percent) {
@@ -500,11 +1885,15 @@ public class RangeSeekBar extends View {
         }
 
         void draw(Canvas canvas) {
-            int offset = (int) (mLineWidth * mCurrPercent);
+            mDrawnLeft = boundsLeft();
+            mDrawnRight = boundsRight();
+            int offset = (int) (mTravel * mCurrPercent);
             canvas.save();
             canvas.translate(offset, 0);
             if (mBitmapBar != null) {
                 canvas.drawBitmap(mBitmapBar, mLeft, mTop - mBitmapBar.getHeight() / 2, null);
+            } else if (mThumbAtlas != null) {
+                drawAtlasFrame(canvas);
             } else {
                 canvas.translate(mLeft, 0);
                 drawShaderBar(canvas);
@@ -516,25 +1905,20 @@ public class RangeSeekBar extends View {
         }
 
         private void drawShaderBar(Canvas canvas) {
-            int centerX = mWidth / 2;
-            int radius = (int) (mWidth * 0.5f);
-            // draw shadow
-            mDefaultPaint.setStyle(Paint.Style.FILL);
-            canvas.save();
-            canvas.translate(0, radius * 0.25f);
-            canvas.scale(1 + (0.1f * mMaterial), 1 + (0.1f * mMaterial), centerX, mTop);
-            mDefaultPaint.setShader(mShaderBar);
-            canvas.drawCircle(centerX, mTop, radius, mDefaultPaint);
-            mDefaultPaint.setShader(null);
-            canvas.restore();
-            // draw body
-            mDefaultPaint.setStyle(Paint.Style.FILL);
-            mDefaultPaint.setColor(mTypeEvaluator.evaluate(mMaterial, 0xFFFFFFFF, 0xFFE7E7E7));
-            canvas.drawCircle(centerX, mTop, radius, mDefaultPaint);
-            // draw border
-            mDefaultPaint.setStyle(Paint.Style.STROKE);
-            mDefaultPaint.setColor(0xFFD7D7D7);
-            canvas.drawCircle(centerX, mTop, radius, mDefaultPaint);
+            ThumbAtlas.drawThumb(canvas, mDefaultPaint, mShaderBar, mWidth, mTop, mMaterial);
+        }
+
+        /**
+         * The press state frame nearest to mMaterial, copied 1:1.
+         */
+        private void drawAtlasFrame(Canvas canvas) {
+            int frameWidth = ThumbAtlas.frameWidth(mWidth);
+            int frameLeft = ThumbAtlas.frameIndex(mMaterial) * frameWidth;
+            mAtlasSrc.set(frameLeft, 0, frameLeft + frameWidth, mThumbAtlas.getHeight());
+            int left = mLeft - ThumbAtlas.padding(mWidth);
+            int top = ThumbAtlas.frameTop(mWidth, mTop);
+            mAtlasDst.set(left, top, left + frameWidth, top + mThumbAtlas.getHeight());
+            canvas.drawBitmap(mThumbAtlas, mAtlasSrc, mAtlasDst, null);
         }
 
         private void drawTips(Canvas canvas) {
@@ -543,35 +1927,91 @@ public class RangeSeekBar extends View {
             mDefaultPaint.setTextSize(24);
             mDefaultPaint.setFakeBoldText(true);
 
-            float result = mMinValue + (mMaxValue - mMinValue) * mCurrPercent - mOffsetValue;
-            String text = ((int) result) + "万";
-            TextPaint textPaint = new TextPaint();
-            textPaint.setTextSize(24);
-            int textX = (int) (mLeft + mBitmapTips.getWidth() / 2 - textPaint.measureText(text) / 2);
+            float result = getValue();
+            int cellsCount = mModel.getCellsCount();
+            if (mTipsFormatter != null && cellsCount > 1 && cellsCount <= MAX_CACHED_TIPS_CELLS) {
+                if (mTipsLabels == null) {
+                    mTipsLabels = new String[cellsCount + 1];
+                    mTipsWidths = new float[cellsCount + 1];
+                }
+                int index = Math.round(mCurrPercent * cellsCount);
+                if (mTipsLabels[index] == null) {
+                    mTipsLabels[index] = mTipsFormatter.formatTips(RangeSeekBar.this, result);
+                    mTipsWidths[index] = mTipsPaint.measureText(mTipsLabels[index]);
+                }
+                drawTipsText(canvas, mTipsLabels[index], mTipsWidths[index]);
+                return;
+            }
+
+            long value = mLongRange != null ? mLongRange.valueAt(mIndex) : (int) result;
+            if (value != mTipsValue) {
+                mTipsValue = value;
+                if (mTipsFormatter != null) {
+                    mTipsLabel = mTipsFormatter.formatTips(RangeSeekBar.this, result);
+                    mTipsWidth = mTipsPaint.measureText(mTipsLabel);
+                } else {
+                    mTipsLength = RenderUtils.appendLong(mTipsText, 0, value);
+                    mTipsText[mTipsLength++] = '万';
+                    mTipsWidth = mTipsPaint.measureText(mTipsText, 0, mTipsLength);
+                }
+            }
+            if (mTipsFormatter != null) {
+                drawTipsText(canvas, mTipsLabel, mTipsWidth);
+            } else {
+                int textX = (int) (mLeft + mBitmapTips.getWidth() / 2 - mTipsWidth / 2);
+                canvas.drawText(mTipsText, 0, mTipsLength, textX, mTipTop - 24, mDefaultPaint);
+            }
+        }
+
+        private void drawTipsText(Canvas canvas, String text, float width) {
+            int textX = (int) (mLeft + mBitmapTips.getWidth() / 2 - width / 2);
             canvas.drawText(text, textX, mTipTop - 24, mDefaultPaint);
         }
 
+        private void materialPress() {
+            animateMaterial(1, MATERIAL_PRESS_DURATION);
+        }
+
         private void materialRestore() {
-            if (mAnim != null) {
-                mAnim.cancel();
+            animateMaterial(0, MATERIAL_RESTORE_DURATION);
+        }
+
+        /**
+         * Animate mMaterial to target over the remaining part of duration, independent of the touch sample
+         * rate. One animator is reused for every gesture and nothing is invalidated once it settles.
+         */
+        private void animateMaterial(float target, int duration) {
+            if (mAnim == null) {
+                mAnim = ValueAnimator.ofFloat(0, 1);
+                mAnim.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+                    @Override
+                    public void onAnimationUpdate(ValueAnimator animation) {
+                        mMaterial = mMaterialFrom + (mMaterialTo - mMaterialFrom) * animation.getAnimatedFraction();
+                        invalidateRange(SeekBar.this);
+                    }
+                });
+            } else if (mMaterialTo == target && mAnim.isRunning()) {
+                return;
             }
-            mAnim = ValueAnimator.ofFloat(mMaterial, 0);
-            mAnim.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-                @Override
-                public void onAnimationUpdate(ValueAnimator animation) {
-                    mMaterial = (float) animation.getAnimatedValue();
-                    invalidate();
-                }
-            });
-            mAnim.addListener(new AnimatorListenerAdapter() {
-                @Override
-                public void onAnimationEnd(Animator animation) {
-                    mMaterial = 0;
-                    invalidate();
-                }
-            });
+            mAnim.cancel();
+            mMaterialFrom = mMaterial;
+            mMaterialTo = target;
+            if (mMaterial == target) {
+                return;
+            }
+            mAnim.setDuration((long) (duration * Math.abs(target - mMaterial)));
             mAnim.start();
         }
+
+        /**
+         * Stop a running press state animation, jumping to its end.
+         */
+        private void finishMaterial() {
+            if (mAnim != null && mAnim.isRunning()) {
+                mAnim.cancel();
+                mMaterial = mMaterialTo;
+            }
+        }
     }
 
     /**
@@ -586,4 +2026,88 @@ public class RangeSeekBar extends View {
          */
         void onRangeChanged(RangeSeekBar view, float min, float max);
     }
+
+    /**
+     * TipsFormatter
+     */
+    public interface TipsFormatter {
+        /**
+         * text shown on the tips while dragging
+         * @param view
+         * @param value current value of the dragged seek bar
+         * @return
+         */
+        String formatTips(RangeSeekBar view, float value);
+    }
+
+    /**
+     * OnLongRangeChangedListener, exact values in long mode
+     */
+    public interface OnLongRangeChangedListener {
+        /**
+         * range changed
+         * @param view
+         * @param min
+         * @param max
+         */
+        void onRangeChanged(RangeSeekBar view, long min, long max);
+    }
+
+    /**
+     * OnRangeCountChangedListener, items of the attached dataset inside the selection
+     */
+    public interface OnRangeCountChangedListener {
+        /**
+         * range changed
+         * @param view
+         * @param count toIndex - fromIndex
+         * @param fromIndex first index inside the selection in the sorted dataset
+         * @param toIndex index after the last one inside the selection
+         */
+        void onRangeCountChanged(RangeSeekBar view, int count, int fromIndex, int toIndex);
+    }
+
+    /**
+     * RangeQuery, e.g. a database or search query for the selected range
+     */
+    public interface RangeQuery<R> {
+        /**
+         * called on a background thread, only for the newest range
+         * @param min selected min, exact long values in long mode up to 2^53
+         * @param max selected max
+         * @return
+         */
+        R query(double min, double max);
+    }
+
+    /**
+     * OnRangeQueryResultListener
+     */
+    public interface OnRangeQueryResultListener<R> {
+        /**
+         * called on the main thread with the result of the newest range
+         * @param view
+         * @param min
+         * @param max
+         * @param result
+         */
+        void onRangeQueryResult(RangeSeekBar view, double min, double max, R result);
+    }
+
+    /**
+     * OnRangeTrackingListener
+     */
+    public interface OnRangeTrackingListener {
+        /**
+         * a thumb has been touched and a drag may follow
+         * @param view
+         */
+        void onStartTrackingTouch(RangeSeekBar view);
+
+        /**
+         * the drag ended, a good place for expensive work deferred during the drag
+         * @param view
+         */
+        void onStopTrackingTouch(RangeSeekBar view);
+    }
 }
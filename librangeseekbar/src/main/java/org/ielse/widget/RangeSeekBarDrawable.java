@@ -0,0 +1,289 @@
+package org.ielse.widget;
+
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.LinearGradient;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.RadialGradient;
+import android.graphics.Rect;
+import android.graphics.Shader;
+import android.graphics.drawable.Drawable;
+
+/**
+ * The line, cell ticks, selected range and two default thumbs of {@link RangeSeekBar} as a Drawable driven
+ * by a {@link RangeModel}, so one host view can draw many ranges without a view per range. Set the host as
+ * callback and return true from its verifyDrawable() for the drawable to invalidate only its bounds.
+ * Touch handling is left to {@link RangeSeekBarTouchHelper}.
+ * <p>
+ * Thumbs are placed, hit-tested and slid by the same {@link ThumbPosition} code as in the view. Not
+ * supported: tips, thumb bitmaps, more than two thumbs, long mode, {@link RangeScale}, the histogram
+ * and the metrics overlay; use a {@link RangeSeekBar} for those.
+ */
+public class RangeSeekBarDrawable extends Drawable {
+
+    static final int THUMB_NONE = -1, THUMB_LEFT = 0, THUMB_RIGHT = 1;
+
+    private final float mDensity;
+    private final TrackRenderer mTrack;
+    private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mThumbPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private RangeModel mModel;
+    private final ThumbPosition[] mThumbs = {new ThumbPosition(), new ThumbPosition()};
+    private int mLineEdgeColor = 0xFFD7D7D7;
+    private int mLineShadeColorStart = 0xFF00B4FF, mLineShadeColorEnd = 0xFF0E83FF;
+    private LinearGradient mLineShader;
+    private int mLineHeight;
+    private boolean mThumbsVisible = true;
+    private int mAlpha = 255;
+
+    // layout relative to the bounds
+    private int mLineTop, mLineBottom;
+    private int mThumbWidth, mThumbCenterY;
+    private RadialGradient mThumbShadow;
+    private float mLeftMaterial, mRightMaterial;
+
+    public RangeSeekBarDrawable(RangeModel model) {
+        mDensity = Resources.getSystem().getDisplayMetrics().density;
+        mTrack = new TrackRenderer(mDensity);
+        mLineHeight = (int) (mDensity * 5);
+        mModel = model;
+        mThumbs[THUMB_RIGHT].mPosition = 1;
+        mThumbs[THUMB_RIGHT].mCurrPercent = 1;
+        mLineShader = createLineShader();
+    }
+
+    /**
+     * Replace the rules, selecting the whole range.
+     */
+    public void setModel(RangeModel model) {
+        mModel = model;
+        mThumbs[THUMB_LEFT].mCurrPercent = 0;
+        mThumbs[THUMB_RIGHT].mCurrPercent = 1;
+        mTrack.invalidateTicks();
+        layout(getBounds());
+        invalidateSelf();
+    }
+
+    public RangeModel getModel() {
+        return mModel;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the values are not valid for the model, see
+     *                                  {@link RangeSeekBar#setValue(float, float)}
+     */
+    public void setValue(float min, float max) {
+        if (min > max) {
+            throw new IllegalArgumentException("setValue() min must not be greater than max ! #min:" + min
+                    + " #max:" + max);
+        }
+        mThumbs[THUMB_LEFT].mCurrPercent = mModel.percentOf(min);
+        mThumbs[THUMB_RIGHT].mCurrPercent = mModel.percentOf(max);
+        invalidateSelf();
+    }
+
+    /**
+     * Apply a state validated when it was created, see {@link RangeSeekBar#bind(RangeSeekBarState)}.
+     */
+    public void bind(RangeSeekBarState state) {
+        if (mModel != state.getModel()) {
+            mModel = state.getModel();
+            mTrack.invalidateTicks();
+            layout(getBounds());
+        }
+        mThumbs[THUMB_LEFT].mCurrPercent = state.getMinPercent();
+        mThumbs[THUMB_RIGHT].mCurrPercent = state.getMaxPercent();
+        if (state.hasColors()) {
+            setLineColors(state.getEdgeColor(), state.getShadeStartColor(), state.getShadeEndColor());
+        }
+        invalidateSelf();
+    }
+
+    public float getSelectedMin() {
+        return mModel.valueOf(mThumbs[THUMB_LEFT].mCurrPercent);
+    }
+
+    public float getSelectedMax() {
+        return mModel.valueOf(mThumbs[THUMB_RIGHT].mCurrPercent);
+    }
+
+    public void setLineColors(int edgeColor, int shadeStartColor, int shadeEndColor) {
+        if (mLineEdgeColor == edgeColor && mLineShadeColorStart == shadeStartColor
+                && mLineShadeColorEnd == shadeEndColor) {
+            return;
+        }
+        mLineEdgeColor = edgeColor;
+        mLineShadeColorStart = shadeStartColor;
+        mLineShadeColorEnd = shadeEndColor;
+        mLineShader = createLineShader();
+        invalidateSelf();
+    }
+
+    public void setLineHeight(int lineHeight) {
+        mLineHeight = lineHeight;
+        layout(getBounds());
+        invalidateSelf();
+    }
+
+    /**
+     * Without thumbs the line is centered vertically, e.g. for read-only indicators in dense rows.
+     */
+    public void setThumbsVisible(boolean visible) {
+        if (mThumbsVisible != visible) {
+            mThumbsVisible = visible;
+            layout(getBounds());
+            invalidateSelf();
+        }
+    }
+
+    public boolean isThumbsVisible() {
+        return mThumbsVisible;
+    }
+
+    private LinearGradient createLineShader() {
+        return new LinearGradient(0, 0, 1, 0, mLineShadeColorStart, mLineShadeColorEnd, Shader.TileMode.CLAMP);
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        super.onBoundsChange(bounds);
+        layout(bounds);
+    }
+
+    /**
+     * Same proportions as {@link RangeSeekBar}, with the line inset just enough to keep the thumbs inside
+     * the bounds. Hidden thumbs are laid out with no width, so the selection spans the whole line.
+     */
+    private void layout(Rect bounds) {
+        if (bounds.isEmpty()) {
+            return;
+        }
+        int baseLineBottom = mThumbsVisible ? bounds.height() * 2 / 3 : bounds.height() / 2;
+        mThumbCenterY = baseLineBottom;
+        mThumbWidth = (int) (baseLineBottom * 0.8f);
+        int inset = mThumbsVisible ? mThumbWidth / 2 + ThumbAtlas.padding(mThumbWidth) : 0;
+        int lineWidth = bounds.width() - 2 * inset;
+        mLineTop = baseLineBottom - mLineHeight / 2;
+        mLineBottom = baseLineBottom + mLineHeight / 2;
+        mTrack.layout(inset, mLineTop, inset + lineWidth, mLineBottom);
+        int thumbWidth = mThumbsVisible ? mThumbWidth : 0;
+        for (ThumbPosition thumb : mThumbs) {
+            thumb.mWidth = thumbWidth;
+            thumb.layout(inset, lineWidth, mModel.isCellsMode(), thumbWidth, 1);
+        }
+        if (mThumbsVisible) {
+            mThumbShadow = ThumbAtlas.createShadow(mThumbWidth, mThumbCenterY);
+        }
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        Rect bounds = getBounds();
+        if (bounds.isEmpty()) {
+            return;
+        }
+        int count;
+        if (mAlpha < 255) {
+            // the thumb colors are fixed, so fade everything as one layer
+            count = canvas.saveLayerAlpha(bounds.left, bounds.top, bounds.right, bounds.bottom, mAlpha,
+                    Canvas.ALL_SAVE_FLAG);
+        } else {
+            count = canvas.save();
+        }
+        canvas.translate(bounds.left, bounds.top);
+        mTrack.drawTrack(canvas, mPaint, mModel, mLineEdgeColor);
+        mTrack.drawSelection(canvas, mPaint, mLineShader, mThumbs[THUMB_LEFT].center(),
+                mThumbs[THUMB_RIGHT].center(), mLeftMaterial > 0 || mRightMaterial > 0 ? mLineHeight / 2 : 0);
+        if (mThumbsVisible) {
+            drawThumb(canvas, THUMB_LEFT, mLeftMaterial);
+            drawThumb(canvas, THUMB_RIGHT, mRightMaterial);
+        }
+        canvas.restoreToCount(count);
+    }
+
+    private void drawThumb(Canvas canvas, int thumb, float material) {
+        canvas.save();
+        canvas.translate(mThumbs[thumb].center() - mThumbWidth / 2, 0);
+        ThumbAtlas.drawThumb(canvas, mThumbPaint, mThumbShadow, mThumbWidth, mThumbCenterY, material);
+        canvas.restore();
+    }
+
+    /**
+     * @return center x of a thumb in the coordinates of the host view
+     */
+    float thumbCenter(int thumb) {
+        return getBounds().left + mThumbs[thumb].center();
+    }
+
+    /**
+     * @param x in the coordinates of the bounds, i.e. of the host view
+     * @return the thumb under the point, of two stacked thumbs the one that can still move, see
+     * {@link ThumbPosition#nearest}
+     */
+    int hitTest(float x, float y) {
+        Rect bounds = getBounds();
+        if (!mThumbsVisible || !bounds.contains((int) x, (int) y)) {
+            return THUMB_NONE;
+        }
+        x -= bounds.left;
+        y -= bounds.top;
+        int thumb = ThumbPosition.nearest(mThumbs, x);
+        boolean hit = mThumbs[thumb].containsX(x) && y > mThumbCenterY - mThumbWidth / 2f;
+        return hit ? thumb : THUMB_NONE;
+    }
+
+    /**
+     * Move a thumb to x, snapping to cells and keeping the reserve to the other thumb.
+     *
+     * @param x in the coordinates of the bounds, i.e. of the host view
+     * @return true if the selection changed
+     */
+    boolean slide(int thumb, float x) {
+        float percent = ThumbPosition.slide(mModel, mThumbs, thumb, x - getBounds().left);
+        if (percent == mThumbs[thumb].mCurrPercent) {
+            return false;
+        }
+        mThumbs[thumb].mCurrPercent = percent;
+        invalidateSelf();
+        return true;
+    }
+
+    /**
+     * Draw a thumb in its pressed state, from 0 (released) to 1 (pressed).
+     */
+    void setThumbPressed(int thumb, float material) {
+        if (thumb == THUMB_LEFT) {
+            mLeftMaterial = material;
+        } else {
+            mRightMaterial = material;
+        }
+        invalidateSelf();
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        if (mAlpha != alpha) {
+            mAlpha = alpha;
+            invalidateSelf();
+        }
+    }
+
+    @Override
+    public int getAlpha() {
+        return mAlpha;
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter colorFilter) {
+        mPaint.setColorFilter(colorFilter);
+        mThumbPaint.setColorFilter(colorFilter);
+        invalidateSelf();
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+}
@@ -0,0 +1,132 @@
+package org.ielse.widget;
+
+/**
+ * Per-instance cost counters of a {@link RangeSeekBar}, see {@link RangeSeekBar#setMetrics(RangeSeekBarMetrics)}.
+ * Updated and read on the main thread; times are in nanoseconds.
+ */
+public final class RangeSeekBarMetrics {
+
+    private int mDrawCount;
+    private long mDrawTimeNanos;
+    private long mMaxDrawTimeNanos;
+    private int mTouchEventCount;
+    private int mTouchSamplesCoalesced;
+    private int mDispatchesCoalesced;
+    private int mListenerCallCount;
+    private long mListenerTimeNanos;
+    private int mFullInvalidateCount;
+    private int mPartialInvalidateCount;
+    private int mBitmapDecodeCount;
+    private long mBitmapDecodeTimeNanos;
+
+    void recordDraw(long nanos) {
+        mDrawCount++;
+        mDrawTimeNanos += nanos;
+        if (nanos > mMaxDrawTimeNanos) {
+            mMaxDrawTimeNanos = nanos;
+        }
+    }
+
+    void recordTouchEvent(int historySize) {
+        mTouchEventCount++;
+        mTouchSamplesCoalesced += historySize;
+    }
+
+    void recordDispatchCoalesced() {
+        mDispatchesCoalesced++;
+    }
+
+    void recordListenerCall(long nanos) {
+        mListenerCallCount++;
+        mListenerTimeNanos += nanos;
+    }
+
+    void recordInvalidate(boolean partial) {
+        if (partial) {
+            mPartialInvalidateCount++;
+        } else {
+            mFullInvalidateCount++;
+        }
+    }
+
+    void recordBitmapDecode(long nanos) {
+        mBitmapDecodeCount++;
+        mBitmapDecodeTimeNanos += nanos;
+    }
+
+    public int getDrawCount() {
+        return mDrawCount;
+    }
+
+    public long getDrawTimeNanos() {
+        return mDrawTimeNanos;
+    }
+
+    public long getAverageDrawTimeNanos() {
+        return mDrawCount == 0 ? 0 : mDrawTimeNanos / mDrawCount;
+    }
+
+    public long getMaxDrawTimeNanos() {
+        return mMaxDrawTimeNanos;
+    }
+
+    /**
+     * @return move events handled, each one state update
+     */
+    public int getTouchEventCount() {
+        return mTouchEventCount;
+    }
+
+    /**
+     * @return historical samples batched into the handled move events
+     */
+    public int getTouchSamplesCoalesced() {
+        return mTouchSamplesCoalesced;
+    }
+
+    /**
+     * @return range changes merged or dropped by {@link RangeSeekBar#setCoalesceRangeChanges(boolean)}
+     */
+    public int getDispatchesCoalesced() {
+        return mDispatchesCoalesced;
+    }
+
+    public int getListenerCallCount() {
+        return mListenerCallCount;
+    }
+
+    public long getListenerTimeNanos() {
+        return mListenerTimeNanos;
+    }
+
+    public int getFullInvalidateCount() {
+        return mFullInvalidateCount;
+    }
+
+    public int getPartialInvalidateCount() {
+        return mPartialInvalidateCount;
+    }
+
+    public int getBitmapDecodeCount() {
+        return mBitmapDecodeCount;
+    }
+
+    public long getBitmapDecodeTimeNanos() {
+        return mBitmapDecodeTimeNanos;
+    }
+
+    public void reset() {
+        mDrawCount = 0;
+        mDrawTimeNanos = 0;
+        mMaxDrawTimeNanos = 0;
+        mTouchEventCount = 0;
+        mTouchSamplesCoalesced = 0;
+        mDispatchesCoalesced = 0;
+        mListenerCallCount = 0;
+        mListenerTimeNanos = 0;
+        mFullInvalidateCount = 0;
+        mPartialInvalidateCount = 0;
+        mBitmapDecodeCount = 0;
+        mBitmapDecodeTimeNanos = 0;
+    }
+}
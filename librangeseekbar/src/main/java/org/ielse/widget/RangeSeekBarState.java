@@ -0,0 +1,103 @@
+package org.ielse.widget;
+
+/**
+ * Everything {@link RangeSeekBar#bind(RangeSeekBarState)} applies: rules, selection and optionally line
+ * colors. Validated once when created, e.g. while building adapter items, so binding a list row is cheap
+ * and cannot throw. Immutable and free of Android dependencies.
+ */
+public final class RangeSeekBarState {
+
+    private final RangeModel mModel;
+    private final float mSelectedMin, mSelectedMax;
+    private final float mMinPercent, mMaxPercent;
+    private final boolean mHasColors;
+    private final int mEdgeColor, mShadeStartColor, mShadeEndColor;
+
+    /**
+     * Keeps the colors the bar already has.
+     *
+     * @throws IllegalArgumentException if the values are not valid for the model, see
+     *                                  {@link RangeSeekBar#setValue(float, float)}
+     */
+    public RangeSeekBarState(RangeModel model, float min, float max) {
+        this(model, min, max, false, 0, 0, 0);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the values are not valid for the model, see
+     *                                  {@link RangeSeekBar#setValue(float, float)}
+     */
+    public RangeSeekBarState(RangeModel model, float min, float max, int edgeColor, int shadeStartColor,
+                             int shadeEndColor) {
+        this(model, min, max, true, edgeColor, shadeStartColor, shadeEndColor);
+    }
+
+    private RangeSeekBarState(RangeModel model, float min, float max, boolean hasColors, int edgeColor,
+                              int shadeStartColor, int shadeEndColor) {
+        if (min > max) {
+            throw new IllegalArgumentException("setValue() min must not be greater than max ! #min:" + min
+                    + " #max:" + max);
+        }
+        mModel = model;
+        mSelectedMin = min;
+        mSelectedMax = max;
+        mMinPercent = model.percentOf(min);
+        mMaxPercent = model.percentOf(max);
+        mHasColors = hasColors;
+        mEdgeColor = edgeColor;
+        mShadeStartColor = shadeStartColor;
+        mShadeEndColor = shadeEndColor;
+    }
+
+    /**
+     * Snapshot of a bar, percents taken as they are.
+     */
+    RangeSeekBarState(RangeModel model, float min, float max, float minPercent, float maxPercent,
+                      int edgeColor, int shadeStartColor, int shadeEndColor) {
+        mModel = model;
+        mSelectedMin = min;
+        mSelectedMax = max;
+        mMinPercent = minPercent;
+        mMaxPercent = maxPercent;
+        mHasColors = true;
+        mEdgeColor = edgeColor;
+        mShadeStartColor = shadeStartColor;
+        mShadeEndColor = shadeEndColor;
+    }
+
+    public RangeModel getModel() {
+        return mModel;
+    }
+
+    public float getSelectedMin() {
+        return mSelectedMin;
+    }
+
+    public float getSelectedMax() {
+        return mSelectedMax;
+    }
+
+    float getMinPercent() {
+        return mMinPercent;
+    }
+
+    float getMaxPercent() {
+        return mMaxPercent;
+    }
+
+    public boolean hasColors() {
+        return mHasColors;
+    }
+
+    public int getEdgeColor() {
+        return mEdgeColor;
+    }
+
+    public int getShadeStartColor() {
+        return mShadeStartColor;
+    }
+
+    public int getShadeEndColor() {
+        return mShadeEndColor;
+    }
+}
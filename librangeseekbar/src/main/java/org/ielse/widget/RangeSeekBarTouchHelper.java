@@ -0,0 +1,87 @@
+package org.ielse.widget;
+
+import android.view.MotionEvent;
+
+/**
+ * Drags the thumbs of a {@link RangeSeekBarDrawable}. Forward the touch events of the host view, in the
+ * host's coordinates; the helper takes the gesture if it starts on a thumb. One helper per drawable, or
+ * one helper reassigned with {@link #setDrawable(RangeSeekBarDrawable)} on ACTION_DOWN for many.
+ */
+public class RangeSeekBarTouchHelper {
+
+    private RangeSeekBarDrawable mDrawable;
+    private OnRangeChangedListener mListener;
+    private int mTouchThumb = RangeSeekBarDrawable.THUMB_NONE;
+
+    public RangeSeekBarTouchHelper(RangeSeekBarDrawable drawable) {
+        mDrawable = drawable;
+    }
+
+    /**
+     * Ignored while a thumb is dragged.
+     */
+    public void setDrawable(RangeSeekBarDrawable drawable) {
+        if (mTouchThumb == RangeSeekBarDrawable.THUMB_NONE) {
+            mDrawable = drawable;
+        }
+    }
+
+    public RangeSeekBarDrawable getDrawable() {
+        return mDrawable;
+    }
+
+    public void setOnRangeChangedListener(OnRangeChangedListener listener) {
+        mListener = listener;
+    }
+
+    public boolean isDragging() {
+        return mTouchThumb != RangeSeekBarDrawable.THUMB_NONE;
+    }
+
+    /**
+     * @return true if the event belongs to a drag of this helper
+     */
+    public boolean onTouchEvent(MotionEvent event) {
+        switch (event.getAction()) {
+            case MotionEvent.ACTION_DOWN:
+                mTouchThumb = mDrawable.hitTest(event.getX(), event.getY());
+                if (mTouchThumb == RangeSeekBarDrawable.THUMB_NONE) {
+                    return false;
+                }
+                mDrawable.setThumbPressed(mTouchThumb, 1);
+                return true;
+
+            case MotionEvent.ACTION_MOVE:
+                if (mTouchThumb == RangeSeekBarDrawable.THUMB_NONE) {
+                    return false;
+                }
+                // only changes of the snapped selection are reported
+                if (mDrawable.slide(mTouchThumb, event.getX()) && mListener != null) {
+                    mListener.onRangeChanged(mDrawable, mDrawable.getSelectedMin(), mDrawable.getSelectedMax());
+                }
+                return true;
+
+            case MotionEvent.ACTION_CANCEL:
+            case MotionEvent.ACTION_UP:
+                if (mTouchThumb == RangeSeekBarDrawable.THUMB_NONE) {
+                    return false;
+                }
+                mDrawable.setThumbPressed(mTouchThumb, 0);
+                mTouchThumb = RangeSeekBarDrawable.THUMB_NONE;
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * OnRangeChangedListener
+     */
+    public interface OnRangeChangedListener {
+        /**
+         * @param drawable
+         * @param min
+         * @param max
+         */
+        void onRangeChanged(RangeSeekBarDrawable drawable, float min, float max);
+    }
+}
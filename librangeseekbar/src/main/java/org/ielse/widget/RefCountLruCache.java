@@ -0,0 +1,136 @@
+package org.ielse.widget;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * LRU cache keyed by long whose entries are reference counted. Entries still referenced are never
+ * evicted; released entries stay cached until the byte budget pushes them out.
+ */
+abstract class RefCountLruCache<V> {
+
+    private final LinkedHashMap<Long, Entry<V>> mEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private long mMaxBytes;
+    private long mBytes;
+    private int mHitCount;
+    private int mMissCount;
+    private int mEvictionCount;
+
+    RefCountLruCache(long maxBytes) {
+        mMaxBytes = maxBytes;
+    }
+
+    protected abstract int sizeOf(V value);
+
+    /**
+     * @return the cached value with its reference count incremented, or null on a miss
+     */
+    synchronized V acquire(long key) {
+        Entry<V> entry = mEntries.get(key);
+        if (entry == null) {
+            mMissCount++;
+            return null;
+        }
+        mHitCount++;
+        entry.refCount++;
+        return entry.value;
+    }
+
+    /**
+     * Like {@link #acquire(long)} but a miss is not counted, for a lookup that an acquire() will repeat.
+     */
+    synchronized V acquireIfPresent(long key) {
+        Entry<V> entry = mEntries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        mHitCount++;
+        entry.refCount++;
+        return entry.value;
+    }
+
+    /**
+     * Insert a freshly created value with one reference. If another caller inserted the same key in the
+     * meantime, that value is referenced and returned instead.
+     */
+    synchronized V put(long key, V value) {
+        Entry<V> entry = mEntries.get(key);
+        if (entry != null) {
+            entry.refCount++;
+            return entry.value;
+        }
+        entry = new Entry<>(value, sizeOf(value));
+        mEntries.put(key, entry);
+        mBytes += entry.bytes;
+        trimToSize(mMaxBytes);
+        return value;
+    }
+
+    synchronized void release(long key) {
+        Entry<V> entry = mEntries.get(key);
+        if (entry == null || entry.refCount == 0) {
+            return;
+        }
+        entry.refCount--;
+        if (entry.refCount == 0) {
+            trimToSize(mMaxBytes);
+        }
+    }
+
+    synchronized int refCount(long key) {
+        Entry<V> entry = mEntries.get(key);
+        return entry == null ? 0 : entry.refCount;
+    }
+
+    synchronized void setMaxBytes(long maxBytes) {
+        mMaxBytes = maxBytes;
+        trimToSize(maxBytes);
+    }
+
+    synchronized void trimToSize(long maxBytes) {
+        Iterator<Entry<V>> it = mEntries.values().iterator();
+        while (mBytes > maxBytes && it.hasNext()) {
+            Entry<V> entry = it.next();
+            if (entry.refCount == 0) {
+                it.remove();
+                mBytes -= entry.bytes;
+                mEvictionCount++;
+            }
+        }
+    }
+
+    synchronized long maxBytes() {
+        return mMaxBytes;
+    }
+
+    synchronized long bytes() {
+        return mBytes;
+    }
+
+    synchronized int size() {
+        return mEntries.size();
+    }
+
+    synchronized int hitCount() {
+        return mHitCount;
+    }
+
+    synchronized int missCount() {
+        return mMissCount;
+    }
+
+    synchronized int evictionCount() {
+        return mEvictionCount;
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final int bytes;
+        int refCount = 1;
+
+        Entry(V value, int bytes) {
+            this.value = value;
+            this.bytes = bytes;
+        }
+    }
+}
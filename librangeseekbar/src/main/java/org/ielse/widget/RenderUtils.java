@@ -0,0 +1,59 @@
+package org.ielse.widget;
+
+/**
+ * Allocation-free helpers used by the draw path. Pure java so they can be exercised on the JVM.
+ */
+final class RenderUtils {
+
+    private RenderUtils() {
+    }
+
+    /**
+     * Write the decimal representation of value into dst starting at offset.
+     *
+     * @return the index right after the last written char
+     */
+    static int appendInt(char[] dst, int offset, int value) {
+        return appendLong(dst, offset, value);
+    }
+
+    /**
+     * Write the decimal representation of value into dst starting at offset.
+     *
+     * @return the index right after the last written char
+     */
+    static int appendLong(char[] dst, int offset, long value) {
+        if (value == Long.MIN_VALUE) {
+            // -Long.MIN_VALUE overflows, emit its last digit separately
+            offset = appendLong(dst, offset, value / 10);
+            dst[offset++] = '8';
+            return offset;
+        }
+        long v = value;
+        if (v < 0) {
+            dst[offset++] = '-';
+            v = -v;
+        }
+        int digits = 1;
+        for (long t = v; t >= 10; t /= 10) {
+            digits++;
+        }
+        int end = offset + digits;
+        for (int i = end - 1; i >= offset; i--) {
+            dst[i] = (char) ('0' + v % 10);
+            v /= 10;
+        }
+        return end;
+    }
+
+    /**
+     * Interpolate between two ARGB colors without boxing.
+     */
+    static int blendColor(float fraction, int startColor, int endColor) {
+        int a = (int) ((startColor >>> 24) + fraction * ((endColor >>> 24) - (startColor >>> 24)));
+        int r = (int) (((startColor >> 16) & 0xFF) + fraction * (((endColor >> 16) & 0xFF) - ((startColor >> 16) & 0xFF)));
+        int g = (int) (((startColor >> 8) & 0xFF) + fraction * (((endColor >> 8) & 0xFF) - ((startColor >> 8) & 0xFF)));
+        int b = (int) ((startColor & 0xFF) + fraction * ((endColor & 0xFF) - (startColor & 0xFF)));
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+}
@@ -0,0 +1,72 @@
+package org.ielse.widget;
+
+/**
+ * A {@link RangeScale} sampled once per track pixel, so mapping a position during a drag is an array
+ * lookup plus a linear interpolation. Pure java.
+ */
+final class ScaleTable {
+
+    private float[] mValues;
+    private int mSize;
+
+    /**
+     * Sample scale over [min, max] with samples points, reusing the array when it is large enough.
+     */
+    void build(RangeScale scale, double min, double max, int samples) {
+        samples = Math.max(samples, 2);
+        if (mValues == null || mValues.length < samples) {
+            mValues = new float[samples];
+        }
+        mSize = samples;
+        int last = samples - 1;
+        for (int i = 0; i < last; i++) {
+            mValues[i] = (float) scale.valueAt((double) i / last, min, max);
+        }
+        // exact ends, whatever the rounding of the scale
+        mValues[0] = (float) min;
+        mValues[last] = (float) max;
+    }
+
+    int size() {
+        return mSize;
+    }
+
+    float valueAt(float position) {
+        int last = mSize - 1;
+        float x = position * last;
+        if (x <= 0) {
+            return mValues[0];
+        }
+        if (x >= last) {
+            return mValues[last];
+        }
+        int i = (int) x;
+        return mValues[i] + (mValues[i + 1] - mValues[i]) * (x - i);
+    }
+
+    /**
+     * Inverse of {@link #valueAt(float)} by binary search over the ascending samples.
+     */
+    float positionOf(float value) {
+        int last = mSize - 1;
+        if (value <= mValues[0]) {
+            return 0;
+        }
+        if (value >= mValues[last]) {
+            return 1;
+        }
+        int low = 0, high = last;
+        // invariant: mValues[low] < value <= mValues[high]
+        while (high - low > 1) {
+            int mid = (low + high) >>> 1;
+            if (mValues[mid] < value) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        float span = mValues[high] - mValues[low];
+        float fraction = span > 0 ? (value - mValues[low]) / span : 0;
+        return (low + fraction) / last;
+    }
+}
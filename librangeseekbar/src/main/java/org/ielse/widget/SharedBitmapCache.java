@@ -0,0 +1,111 @@
+package org.ielse.widget;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Process-wide cache of the thumb and tips bitmaps, shared by every RangeSeekBar. Bitmaps are keyed by
+ * resource id and screen density and reference counted by the bars using them.
+ */
+public final class SharedBitmapCache {
+
+    private static final RefCountLruCache<Bitmap> sCache =
+            new RefCountLruCache<Bitmap>(Math.min(Runtime.getRuntime().maxMemory() / 32, 8 * 1024 * 1024)) {
+                @Override
+                protected int sizeOf(Bitmap value) {
+                    return value.getByteCount();
+                }
+            };
+
+    // keys that decoded to null, e.g. vector drawables or an OOM, not retried until trimUnused()
+    private static final Set<Long> sUndecodable = Collections.synchronizedSet(new HashSet<Long>());
+
+    private SharedBitmapCache() {
+    }
+
+    static long key(Resources res, int resId) {
+        return ((long) res.getDisplayMetrics().densityDpi << 32) | (resId & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Get the decoded bitmap for resId, decoding it on a miss. Every call must be paired with
+     * {@link #release(Resources, int)}.
+     *
+     * @return null if resId cannot be decoded, see {@link #isUndecodable(Resources, int)}
+     */
+    static Bitmap acquire(Resources res, int resId) {
+        long key = key(res, resId);
+        Bitmap bitmap = sCache.acquire(key);
+        if (bitmap == null && !sUndecodable.contains(key)) {
+            Bitmap decoded = BitmapFactory.decodeResource(res, resId);
+            if (decoded != null) {
+                bitmap = sCache.put(key, decoded);
+            } else {
+                sUndecodable.add(key);
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * Like {@link #acquire(Resources, int)} but never decodes. A miss is left to be counted by the
+     * acquire() of the decode that follows.
+     *
+     * @return the cached bitmap, or null if it is not decoded yet
+     */
+    static Bitmap acquireCached(Resources res, int resId) {
+        return sCache.acquireIfPresent(key(res, resId));
+    }
+
+    /**
+     * @return true if decoding resId returned null before; the bar draws its default thumb instead
+     */
+    static boolean isUndecodable(Resources res, int resId) {
+        return sUndecodable.contains(key(res, resId));
+    }
+
+    static void release(Resources res, int resId) {
+        sCache.release(key(res, resId));
+    }
+
+    public static void setMaxByteCount(long maxBytes) {
+        sCache.setMaxBytes(maxBytes);
+    }
+
+    public static long getMaxByteCount() {
+        return sCache.maxBytes();
+    }
+
+    public static long getByteCount() {
+        return sCache.bytes();
+    }
+
+    public static int getHitCount() {
+        return sCache.hitCount();
+    }
+
+    public static int getMissCount() {
+        return sCache.missCount();
+    }
+
+    public static int getEvictionCount() {
+        return sCache.evictionCount();
+    }
+
+    /**
+     * Drop every bitmap that is no longer used by an attached bar, e.g. from onTrimMemory(). This includes
+     * pooled layers and unused thumb atlases. Resources that failed to decode are tried again.
+     */
+    public static void trimUnused() {
+        sCache.trimToSize(0);
+        // memory freed, decodes that failed on an OOM may succeed now
+        sUndecodable.clear();
+        ThumbAtlas.trimUnused();
+        BitmapPool.clear();
+    }
+}
@@ -0,0 +1,116 @@
+package org.ielse.widget;
+
+import java.util.Arrays;
+
+/**
+ * An ascending primitive dataset attached to a {@link RangeSeekBar}, answering how many items lie in the
+ * selection with two binary searches and no allocation. Holds either floats or longs.
+ */
+final class SortedDataset {
+
+    private final float[] mFloats;
+    private final long[] mLongs;
+
+    private SortedDataset(float[] floats, long[] longs) {
+        mFloats = floats;
+        mLongs = longs;
+    }
+
+    /**
+     * @param sorted true if values is already ascending and may be kept by reference, otherwise a sorted
+     *               copy is made
+     */
+    static SortedDataset of(float[] values, boolean sorted) {
+        if (!sorted) {
+            values = values.clone();
+            Arrays.sort(values);
+        }
+        return new SortedDataset(values, null);
+    }
+
+    static SortedDataset of(long[] values, boolean sorted) {
+        if (!sorted) {
+            values = values.clone();
+            Arrays.sort(values);
+        }
+        return new SortedDataset(null, values);
+    }
+
+    int size() {
+        return mFloats != null ? mFloats.length : mLongs.length;
+    }
+
+    /**
+     * @return index of the first value &gt;= min, or size() if there is none
+     */
+    int lowerBound(double min) {
+        int low = 0, high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (valueAt(mid) < min) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return index after the last value &lt;= max; NaN values sorted last are never included
+     */
+    int upperBound(double max) {
+        int low = 0, high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (valueAt(mid) <= max) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Exact counterpart of {@link #lowerBound(double)} for long values in long mode.
+     */
+    int lowerBound(long min) {
+        if (mFloats != null) {
+            return lowerBound((double) min);
+        }
+        int low = 0, high = mLongs.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mLongs[mid] < min) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Exact counterpart of {@link #upperBound(double)} for long values in long mode.
+     */
+    int upperBound(long max) {
+        if (mFloats != null) {
+            return upperBound((double) max);
+        }
+        int low = 0, high = mLongs.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mLongs[mid] <= max) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private double valueAt(int index) {
+        return mFloats != null ? mFloats[index] : mLongs[index];
+    }
+}
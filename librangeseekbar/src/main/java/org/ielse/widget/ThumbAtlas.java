@@ -0,0 +1,132 @@
+package org.ielse.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RadialGradient;
+import android.graphics.Shader;
+
+/**
+ * The default thumb pre-rasterized in {@link #FRAMES} press states laid out side by side in one bitmap.
+ * Atlases are keyed by thumb size and shared by every bar using that size.
+ */
+final class ThumbAtlas {
+
+    /** press states from 0 (released) to 1 (pressed) */
+    static final int FRAMES = 11;
+
+    private static final RefCountLruCache<Bitmap> sCache =
+            new RefCountLruCache<Bitmap>(Math.min(Runtime.getRuntime().maxMemory() / 32, 8 * 1024 * 1024)) {
+                @Override
+                protected int sizeOf(Bitmap value) {
+                    return value.getByteCount();
+                }
+            };
+
+    private ThumbAtlas() {
+    }
+
+    static long key(int width, int height) {
+        return ((long) width << 32) | (height & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Room around the thumb for the pressed scale of the shadow and anti-aliasing.
+     */
+    static int padding(int width) {
+        return (int) (width * 0.05f) + 2;
+    }
+
+    static int frameWidth(int width) {
+        return width + 2 * padding(width);
+    }
+
+    static int frameHeight(int width) {
+        int radius = (int) (width * 0.5f);
+        // body circle top to the bottom of the pressed shadow, shifted down by radius / 4 and scaled by 1.1
+        return (int) (radius * 2.35f) + 2 * padding(width) + 1;
+    }
+
+    /**
+     * @param height thumb center y, as in {@link #drawThumb}
+     * @return y of the frame top relative to the thumb coordinates
+     */
+    static int frameTop(int width, int height) {
+        return height - (int) (width * 0.5f) - padding(width);
+    }
+
+    static int frameIndex(float material) {
+        return Math.round(material * (FRAMES - 1));
+    }
+
+    /**
+     * Every call must be paired with {@link #release(int, int)}.
+     */
+    static Bitmap acquire(int width, int height) {
+        long key = key(width, height);
+        Bitmap atlas = sCache.acquire(key);
+        if (atlas == null) {
+            atlas = sCache.put(key, build(width, height));
+        }
+        return atlas;
+    }
+
+    static void release(int width, int height) {
+        sCache.release(key(width, height));
+    }
+
+    static void trimUnused() {
+        sCache.trimToSize(0);
+    }
+
+    static RadialGradient createShadow(int width, int height) {
+        int radius = (int) (width * 0.5f);
+        int barShadowRadius = (int) (radius * 0.95f);
+        return new RadialGradient(width / 2, height / 2, barShadowRadius,
+                Color.BLACK, Color.TRANSPARENT, Shader.TileMode.CLAMP);
+    }
+
+    /**
+     * Draw the default thumb: shadow, body and border, with its left edge at x 0 and center at y top.
+     */
+    static void drawThumb(Canvas canvas, Paint paint, Shader shadow, int width, int top, float material) {
+        int centerX = width / 2;
+        int radius = (int) (width * 0.5f);
+        // draw shadow
+        paint.setStyle(Paint.Style.FILL);
+        canvas.save();
+        canvas.translate(0, radius * 0.25f);
+        canvas.scale(1 + (0.1f * material), 1 + (0.1f * material), centerX, top);
+        paint.setShader(shadow);
+        canvas.drawCircle(centerX, top, radius, paint);
+        paint.setShader(null);
+        canvas.restore();
+        // draw body
+        paint.setStyle(Paint.Style.FILL);
+        paint.setColor(RenderUtils.blendColor(material, 0xFFFFFFFF, 0xFFE7E7E7));
+        canvas.drawCircle(centerX, top, radius, paint);
+        // draw border
+        paint.setStyle(Paint.Style.STROKE);
+        paint.setColor(0xFFD7D7D7);
+        canvas.drawCircle(centerX, top, radius, paint);
+    }
+
+    private static Bitmap build(int width, int height) {
+        int frameWidth = frameWidth(width);
+        int frameHeight = frameHeight(width);
+        Bitmap atlas = Bitmap.createBitmap(frameWidth * FRAMES, frameHeight, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(atlas);
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        Shader shadow = createShadow(width, height);
+        int left = padding(width);
+        int top = frameTop(width, height);
+        for (int i = 0; i < FRAMES; i++) {
+            canvas.save();
+            canvas.translate(i * frameWidth + left, -top);
+            drawThumb(canvas, paint, shadow, width, height, i / (float) (FRAMES - 1));
+            canvas.restore();
+        }
+        return atlas;
+    }
+}
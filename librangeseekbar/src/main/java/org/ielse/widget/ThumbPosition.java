@@ -0,0 +1,102 @@
+package org.ielse.widget;
+
+/**
+ * Where a thumb sits on the line: its center at percent 0 and how far it travels to percent 1. The thumbs
+ * of {@link RangeSeekBar} and {@link RangeSeekBarDrawable} are laid out, hit-tested and slid through here,
+ * so both place a thumb at the same x for the same percent.
+ */
+class ThumbPosition {
+
+    int mWidth;
+    // center x at percent 0, and the distance to the center at percent 1
+    int mOrigin, mTravel;
+    float mCurrPercent;
+    // index among the thumbs of a bar, ascending with the percent
+    int mPosition;
+
+    /**
+     * In cells mode every thumb travels the whole line. In continuous mode the thumbs travel the line minus
+     * one thumb width and are shifted apart, up to the first thumb width for the last one, so that the
+     * thumbs never overlap.
+     *
+     * @param firstWidth width of the first thumb
+     * @param last       position of the last thumb
+     */
+    void layout(int lineLeft, int lineWidth, boolean cellsMode, int firstWidth, int last) {
+        if (cellsMode) {
+            mOrigin = lineLeft;
+            mTravel = lineWidth;
+        } else {
+            mOrigin = lineLeft + firstWidth * mPosition / last;
+            mTravel = lineWidth - mWidth;
+        }
+    }
+
+    float center() {
+        return mOrigin + mTravel * mCurrPercent;
+    }
+
+    /**
+     * @return the unclamped percent that centers this thumb at x
+     */
+    float percentAt(float x) {
+        return (x - mOrigin) / mTravel;
+    }
+
+    /**
+     * @return true if x lies between the left and right edge of the thumb, as drawn at whole pixels
+     */
+    boolean containsX(float x) {
+        int left = mOrigin - mWidth / 2 + (int) (mTravel * mCurrPercent);
+        return x > left && x < left + mWidth / 2 * 2;
+    }
+
+    /**
+     * Binary search for the thumb nearest to x, the thumb centers ascend with their position. Of thumbs
+     * stacked on one spot the last is taken unless it cannot move further right.
+     *
+     * @return the index of the thumb
+     */
+    static int nearest(ThumbPosition[] thumbs, float x) {
+        int low = 0, high = thumbs.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (thumbs[mid].center() < x) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int nearest;
+        if (low == 0) {
+            nearest = 0;
+        } else if (low == thumbs.length) {
+            nearest = thumbs.length - 1;
+        } else {
+            nearest = x - thumbs[low - 1].center() <= thumbs[low].center() - x ? low - 1 : low;
+        }
+        float center = thumbs[nearest].center();
+        int first = nearest, last = nearest;
+        while (first > 0 && thumbs[first - 1].center() == center) {
+            first--;
+        }
+        while (last < thumbs.length - 1 && thumbs[last + 1].center() == center) {
+            last++;
+        }
+        return thumbs[last].mCurrPercent >= 1 ? first : last;
+    }
+
+    /**
+     * The percent of a thumb dragged to x, snapped to cells and keeping the reserve to its neighbours.
+     */
+    static float slide(RangeModel model, ThumbPosition[] thumbs, int index, float x) {
+        float percent = thumbs[index].percentAt(x);
+        if (index < thumbs.length - 1) {
+            percent = model.constrainLeft(percent, thumbs[index + 1].mCurrPercent);
+        }
+        if (index > 0) {
+            percent = model.constrainRight(percent, thumbs[index - 1].mCurrPercent);
+        }
+        return percent;
+    }
+}
@@ -0,0 +1,61 @@
+package org.ielse.widget;
+
+/**
+ * Estimates where the finger will be a few milliseconds ahead from the most recent touch samples,
+ * including the historical samples batched into a MotionEvent.
+ */
+final class TouchPredictor {
+
+    private static final int SIZE = 8;
+    private static final long WINDOW_MILLIS = 32;
+
+    private final long[] mTimes = new long[SIZE];
+    private final float[] mXs = new float[SIZE];
+    private int mHead = SIZE - 1;
+    private int mCount;
+
+    void reset() {
+        mHead = SIZE - 1;
+        mCount = 0;
+    }
+
+    void addSample(long timeMillis, float x) {
+        if (mCount > 0 && timeMillis <= mTimes[mHead]) {
+            // same timestamp, keep the latest position only
+            mXs[mHead] = x;
+            return;
+        }
+        mHead = (mHead + 1) % SIZE;
+        mTimes[mHead] = timeMillis;
+        mXs[mHead] = x;
+        if (mCount < SIZE) {
+            mCount++;
+        }
+    }
+
+    /**
+     * Linear extrapolation over the samples of the last WINDOW_MILLIS.
+     *
+     * @return the predicted x, or the latest x if the velocity is unknown
+     */
+    float predict(long aheadMillis) {
+        if (mCount == 0) {
+            return 0;
+        }
+        long time = mTimes[mHead];
+        float x = mXs[mHead];
+        int oldest = mHead;
+        for (int i = 1; i < mCount; i++) {
+            int index = (mHead - i + SIZE) % SIZE;
+            if (time - mTimes[index] > WINDOW_MILLIS) {
+                break;
+            }
+            oldest = index;
+        }
+        long dt = time - mTimes[oldest];
+        if (dt <= 0) {
+            return x;
+        }
+        return x + (x - mXs[oldest]) / dt * aheadMillis;
+    }
+}
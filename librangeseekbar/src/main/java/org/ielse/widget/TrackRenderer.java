@@ -0,0 +1,108 @@
+package org.ielse.widget;
+
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.graphics.Shader;
+
+/**
+ * Draws the line, cell ticks and selected range of a bar, shared by {@link RangeSeekBar} and
+ * {@link RangeSeekBarDrawable}. Ticks are laid out once per size or rules change.
+ */
+final class TrackRenderer {
+
+    private static final int MIN_TICK_SPACING_DP = 3;
+    private static final int MID_DIVIDER_HEIGHT_DP = 13;
+
+    private final float mDensity;
+    private final RectF mLine = new RectF();
+    private final Matrix mShaderMatrix = new Matrix();
+    private int mCorners;
+    private float[] mTickPoints;
+    private int mTickPointsCount;
+    private boolean mTicksDirty = true;
+
+    TrackRenderer(float density) {
+        mDensity = density;
+    }
+
+    void layout(int left, int top, int right, int bottom) {
+        mLine.set(left, top, right, bottom);
+        mCorners = (int) ((bottom - top) * 0.45f);
+        mTicksDirty = true;
+    }
+
+    int getCorners() {
+        return mCorners;
+    }
+
+    /**
+     * @return how far the mid divider of continuous mode with cells reaches above the line
+     */
+    int getMidDividerHeight() {
+        return (int) (mDensity * MID_DIVIDER_HEIGHT_DP);
+    }
+
+    void invalidateTicks() {
+        mTicksDirty = true;
+    }
+
+    void drawTrack(Canvas canvas, Paint paint, RangeModel model, int edgeColor) {
+        paint.setStyle(Paint.Style.FILL);
+        paint.setColor(edgeColor);
+        paint.setShader(null);
+        if (model.getCellsPercent() > 0) {
+            paint.setStrokeWidth(mCorners * 0.3f);
+            if (mTicksDirty) {
+                buildTicks(model);
+            }
+            if (mTickPointsCount > 0) {
+                canvas.drawLines(mTickPoints, 0, mTickPointsCount, paint);
+            }
+            if (!model.isCellsMode()) {
+                float x = mLine.left + (int) mLine.width() / 2;
+                canvas.drawLine(x, mLine.top - getMidDividerHeight(), x, mLine.top, paint);
+            }
+        }
+        canvas.drawRoundRect(mLine, mCorners, mCorners, paint);
+    }
+
+    /**
+     * Lay out the cell ticks for a single drawLines() call, skipping ticks closer than
+     * MIN_TICK_SPACING_DP to each other.
+     */
+    private void buildTicks(RangeModel model) {
+        int cellsCount = model.getCellsCount();
+        float cellsPercent = model.getCellsPercent();
+        float lineWidth = mLine.width();
+        int step = CellMath.tickStep(cellsCount, lineWidth, mDensity * MIN_TICK_SPACING_DP);
+        int count = (cellsCount - 1) / step;
+        if (mTickPoints == null || mTickPoints.length < count * 4) {
+            mTickPoints = new float[count * 4];
+        }
+        int j = 0;
+        for (int i = step; i < cellsCount; i += step) {
+            float x = mLine.left + i * cellsPercent * lineWidth;
+            mTickPoints[j++] = x;
+            mTickPoints[j++] = mLine.top - mCorners;
+            mTickPoints[j++] = x;
+            mTickPoints[j++] = mLine.bottom + mCorners;
+        }
+        mTickPointsCount = j;
+        mTicksDirty = false;
+    }
+
+    /**
+     * Fill the selected range between two x positions, stretching the unit gradient shader over it.
+     *
+     * @param grow extra height above and below the line, e.g. while dragging
+     */
+    void drawSelection(Canvas canvas, Paint paint, Shader shader, float left, float right, float grow) {
+        mShaderMatrix.setScale(Math.max(right - left, 1), 1);
+        mShaderMatrix.postTranslate(left, 0);
+        shader.setLocalMatrix(mShaderMatrix);
+        paint.setShader(shader);
+        canvas.drawRect(left, mLine.top - grow, right, mLine.bottom + grow, paint);
+    }
+}
@@ -0,0 +1,92 @@
+package org.ielse.widget;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CellMathTest {
+
+    /**
+     * The stepping loop formerly used by RangeSeekBar.onTouchEvent for the left seek bar.
+     */
+    private static int loopSnapLeft(float percent, float cellsPercent, float rightPercent, int reserveCount) {
+        int touch = Math.round(percent / cellsPercent);
+        int currRight = Math.round(rightPercent / cellsPercent);
+        int result = touch;
+        while (touch > currRight - reserveCount) {
+            touch--;
+            if (touch < 0) {
+                break;
+            }
+            result = touch;
+        }
+        return result;
+    }
+
+    private static int loopSnapRight(float percent, float cellsPercent, float leftPercent, int reserveCount,
+                                     int cellsCount) {
+        int touch = Math.round(percent / cellsPercent);
+        int currLeft = Math.round(leftPercent / cellsPercent);
+        int result = touch;
+        while (touch < currLeft + reserveCount) {
+            touch++;
+            if (touch > cellsCount) {
+                break;
+            }
+            result = touch;
+        }
+        return result;
+    }
+
+    @Test
+    public void snap_matchesSteppingLoop() throws Exception {
+        Random random = new Random(42);
+        for (int n = 0; n < 100000; n++) {
+            int cells = 2 + random.nextInt(200);
+            float cellsPercent = 1f / cells;
+            int reserve = random.nextInt(cells);
+            float percent = random.nextFloat() * 1.2f - 0.1f;
+            float other = random.nextInt(cells + 1) * cellsPercent;
+            assertEquals(loopSnapLeft(percent, cellsPercent, other, reserve),
+                    CellMath.snapLeft(percent, cellsPercent, other, reserve));
+            assertEquals(loopSnapRight(percent, cellsPercent, other, reserve, cells),
+                    CellMath.snapRight(percent, cellsPercent, other, reserve, cells));
+        }
+    }
+
+    @Test
+    public void tickStep_keepsMinimumSpacing() throws Exception {
+        assertEquals(1, CellMath.tickStep(10, 1000, 6));
+        assertEquals(2, CellMath.tickStep(200, 1000, 6));
+        int step = CellMath.tickStep(1000000, 1000, 6);
+        assertTrue(1000f / 1000000 * step >= 6);
+        assertTrue((1000000 - 1) / step <= 1000 / 6);
+    }
+
+    /**
+     * The cell edges of the track, the reserve boundaries and positions past the ends, where the former
+     * stepping loop did the most iterations.
+     */
+    @Test
+    public void snap_matchesSteppingLoopAtCellEdges() throws Exception {
+        for (int cells : new int[]{1, 1000, 1000000}) {
+            float cellsPercent = 1f / cells;
+            for (int reserve : new int[]{0, cells / 2, cells - 1}) {
+                int[] edges = {0, 1, reserve - 1, reserve, reserve + 1, cells - reserve, cells - 1, cells};
+                for (int edge : edges) {
+                    float percent = edge * cellsPercent;
+                    for (float other : new float[]{0, 0.5f, 1, percent}) {
+                        String message = "cells:" + cells + " reserve:" + reserve + " edge:" + edge + " other:" + other;
+                        assertEquals(message, loopSnapLeft(percent, cellsPercent, other, reserve),
+                                CellMath.snapLeft(percent, cellsPercent, other, reserve));
+                        assertEquals(message, loopSnapRight(percent, cellsPercent, other, reserve, cells),
+                                CellMath.snapRight(percent, cellsPercent, other, reserve, cells));
+                    }
+                }
+            }
+        }
+    }
+}
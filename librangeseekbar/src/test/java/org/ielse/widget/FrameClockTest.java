@@ -0,0 +1,87 @@
+package org.ielse.widget;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FrameClockTest {
+
+    private CountingClock mClock;
+
+    @Before
+    public void setUp() {
+        mClock = new CountingClock();
+    }
+
+    @Test
+    public void advancesEveryClientInOnePass() {
+        Countdown a = new Countdown(2);
+        Countdown b = new Countdown(3);
+        mClock.add(a);
+        mClock.add(b);
+        assertEquals(1, mClock.mPosted);
+
+        mClock.doFrame(1);
+        assertEquals(1, a.mFrames);
+        assertEquals(1, b.mFrames);
+        assertEquals(2, mClock.mPosted);
+
+        mClock.doFrame(2);
+        mClock.doFrame(3);
+        assertEquals(2, a.mFrames);
+        assertEquals(3, b.mFrames);
+        assertEquals(0, mClock.getClientCount());
+        // no frame requested once idle
+        assertEquals(3, mClock.mPosted);
+    }
+
+    @Test
+    public void addingTwiceRegistersOnce() {
+        Countdown a = new Countdown(5);
+        mClock.add(a);
+        mClock.add(a);
+        assertEquals(1, mClock.getClientCount());
+        assertEquals(1, mClock.mPosted);
+    }
+
+    @Test
+    public void clientMayRemoveAnotherWhileCalled() {
+        final Countdown a = new Countdown(5);
+        FrameClock.Client b = new FrameClock.Client() {
+            @Override
+            public boolean onFrame(long frameTimeNanos) {
+                mClock.remove(a);
+                return false;
+            }
+        };
+        mClock.add(a);
+        mClock.add(b);
+        mClock.doFrame(1);
+        assertEquals(0, a.mFrames);
+        assertEquals(0, mClock.getClientCount());
+    }
+
+    private static class CountingClock extends FrameClock {
+        int mPosted;
+
+        @Override
+        void postFrame() {
+            mPosted++;
+        }
+    }
+
+    private static class Countdown implements FrameClock.Client {
+        final int mTotal;
+        int mFrames;
+
+        Countdown(int total) {
+            mTotal = total;
+        }
+
+        @Override
+        public boolean onFrame(long frameTimeNanos) {
+            return ++mFrames < mTotal;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.ielse.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class HistogramTest {
+
+    @Test
+    public void binsFloatsIntoEqualBuckets() {
+        float[] values = {0, 1, 2.5f, 2.6f, 5, 9.99f, 10};
+        assertArrayEquals(new int[]{2, 2, 1, 0, 2}, Histogram.bin(values, 0, 10, 5, null));
+    }
+
+    @Test
+    public void skipsValuesOutsideTheRules() {
+        float[] values = {-1, Float.NaN, 11, 5};
+        assertArrayEquals(new int[]{0, 1}, Histogram.bin(values, 0, 10, 2, null));
+    }
+
+    @Test
+    public void binsLongsBeyondFloatPrecision() {
+        long base = 1500000000000L;
+        long[] values = {base, base + 1, base + 999, base + 1000, base + 1999, base + 2000};
+        assertArrayEquals(new int[]{3, 3}, Histogram.bin(values, base, base + 2000, 2, null));
+    }
+
+    @Test
+    public void binsNegativeRanges() {
+        long[] values = {-10, -6, -5, 0};
+        assertArrayEquals(new int[]{2, 2}, Histogram.bin(values, -10, 0, 2, null));
+    }
+
+    @Test
+    public void binsInScalePositions() {
+        float[] values = {0, 5, 50, 500, 5000};
+        // log over [0, 9999]: one bucket per decade
+        assertArrayEquals(new int[]{2, 1, 1, 1}, Histogram.bin(values, 0, 9999, 4, RangeScale.log()));
+    }
+
+    @Test
+    public void max() {
+        assertEquals(0, Histogram.max(new int[0]));
+        assertEquals(7, Histogram.max(new int[]{3, 7, 1}));
+    }
+}
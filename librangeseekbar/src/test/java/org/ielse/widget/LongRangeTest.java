@@ -0,0 +1,71 @@
+package org.ielse.widget;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LongRangeTest {
+
+    @Test
+    public void epochMillis_areExact() throws Exception {
+        long start = 1500000000123L;
+        LongRange range = new LongRange(start, start + 7L * 24 * 3600 * 1000, 1, 3600 * 1000);
+        assertEquals(start + 1, range.valueAt(range.indexOf(start + 1)));
+        assertEquals(3600 * 1000, range.getReserveSteps());
+    }
+
+    @Test
+    public void reserveSteps_roundUp() throws Exception {
+        assertEquals(3, new LongRange(0, 100, 5, 11).getReserveSteps());
+        assertEquals(2, new LongRange(0, 100, 5, 10).getReserveSteps());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void indexOf_rejectsOffStep() throws Exception {
+        new LongRange(0, 100, 5, 0).indexOf(7);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void overflowingRange_isRejected() throws Exception {
+        new LongRange(Long.MIN_VALUE, Long.MAX_VALUE, 1, 0);
+    }
+
+    @Test
+    public void clamp_keepsReserve() throws Exception {
+        LongRange range = new LongRange(0, 100, 1, 10);
+        assertEquals(40, range.clampLeft(45, 50));
+        assertEquals(0, range.clampLeft(45, 5));
+        assertEquals(60, range.clampRight(55, 50));
+        assertEquals(100, range.clampRight(55, 95));
+        assertEquals(70, range.clampRight(70, 50));
+    }
+
+    @Test
+    public void indexAt_matchesExactRounding() throws Exception {
+        Random random = new Random(7);
+        for (int i = 0; i < 100000; i++) {
+            long width = 1 + random.nextInt(4000);
+            long steps = random.nextBoolean() ? 1 + random.nextInt(1000) : (random.nextLong() >>> 2);
+            long px = random.nextInt((int) width + 1);
+            BigInteger expected = BigInteger.valueOf(px).multiply(BigInteger.valueOf(steps))
+                    .add(BigInteger.valueOf(width / 2)).divide(BigInteger.valueOf(width));
+            assertEquals(expected.longValue(), LongRange.indexAt(px, width, steps));
+        }
+    }
+
+    @Test
+    public void interpolate_endsExactlyOnTarget() throws Exception {
+        // far more steps than a double holds exactly
+        long from = 3;
+        long to = Long.MAX_VALUE - 2;
+        assertEquals(to, LongRange.interpolate(from, to, 1));
+        assertEquals(from, LongRange.interpolate(from, to, 0));
+        assertEquals(from, LongRange.interpolate(to, from, 1));
+        long half = LongRange.interpolate(from, to, 0.5f);
+        assertTrue(half > from && half < to);
+    }
+}
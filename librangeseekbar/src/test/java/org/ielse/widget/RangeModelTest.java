@@ -0,0 +1,93 @@
+package org.ielse.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RangeModelTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rules_maxMustExceedMin() throws Exception {
+        new RangeModel(10, 10, 0, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rules_reserveMustBeLessThanRange() throws Exception {
+        new RangeModel(0, 10, 10, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rules_cellsMustBePositive() throws Exception {
+        new RangeModel(0, 10, 0, 0);
+    }
+
+    @Test
+    public void reserveCount_roundsUpToCells() throws Exception {
+        // README: 1-20 in 5 cells, reserve 1 rounds up to one cell
+        RangeModel model = new RangeModel(0, 20, 1, 5);
+        assertEquals(1, model.getReserveCount());
+        assertEquals(0.2f, model.getReserveSpan(), 1e-6);
+        assertEquals(2, new RangeModel(0, 20, 5, 5).getReserveCount());
+    }
+
+    @Test
+    public void valueAndPercent_roundTrip() throws Exception {
+        RangeModel model = new RangeModel(0, 100, 20, 1);
+        assertEquals(0.15f, model.percentOf(15), 1e-6);
+        assertEquals(66, model.valueOf(model.percentOf(66)), 1e-4);
+    }
+
+    @Test
+    public void negativeMin_isOffset() throws Exception {
+        RangeModel model = new RangeModel(-50, 50, 0, 1);
+        assertEquals(-50, model.getMin(), 0);
+        assertEquals(50, model.getMax(), 0);
+        assertEquals(0.5f, model.percentOf(0), 1e-6);
+        assertEquals(-50, model.valueOf(0), 1e-6);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void percentOf_rejectsOutOfRange() throws Exception {
+        new RangeModel(0, 100, 0, 1).percentOf(101);
+    }
+
+    @Test
+    public void isValid_doesNotThrow() throws Exception {
+        RangeModel model = new RangeModel(0, 100, 20, 5);
+        assertTrue(model.isValid(0, 100));
+        assertFalse(model.isValid(-1, 100));
+        assertFalse(model.isValid(60, 40));
+    }
+
+    @Test
+    public void constrain_continuousKeepsReserve() throws Exception {
+        RangeModel model = new RangeModel(0, 100, 10, 1);
+        assertEquals(0.4f, model.constrainLeft(0.45f, 0.5f), 1e-6);
+        assertEquals(0.6f, model.constrainRight(0.55f, 0.5f), 1e-6);
+        assertEquals(0f, model.constrainLeft(-0.2f, 0.5f), 0);
+        assertEquals(1f, model.constrainRight(1.2f, 0.5f), 0);
+    }
+
+    @Test
+    public void constrain_cellsSnapsAndKeepsReserve() throws Exception {
+        RangeModel model = new RangeModel(0, 4, 1, 4);
+        assertEquals(0.25f, model.constrainLeft(0.3f, 1f), 1e-6);
+        assertEquals(0.5f, model.constrainLeft(0.9f, 0.75f), 1e-6);
+        assertEquals(1f, model.constrainRight(0.9f, 0.25f), 1e-6);
+        assertEquals(0.5f, model.constrainRight(0.1f, 0.25f), 1e-6);
+    }
+
+    @Test
+    public void fit_restoresReserveAfterRulesChange() throws Exception {
+        RangeModel model = new RangeModel(0, 100, 30, 1);
+        float right = model.fitRight(0.2f, 0.3f);
+        assertEquals(0.5f, right, 1e-6);
+        assertEquals(0.2f, model.fitLeft(0.2f, right), 1e-6);
+
+        right = model.fitRight(0.9f, 0.95f);
+        assertEquals(0.95f, right, 1e-6);
+        assertEquals(0.65f, model.fitLeft(0.9f, right), 1e-6);
+    }
+}
@@ -0,0 +1,105 @@
+package org.ielse.widget;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+
+public class RangeQueryExecutorTest {
+
+    private QueueExecutor mBackground;
+    private QueueExecutor mMain;
+    private List<String> mResults;
+    private RangeQueryExecutor<String> mExecutor;
+
+    @Before
+    public void setUp() {
+        mBackground = new QueueExecutor();
+        mMain = new QueueExecutor();
+        mResults = new ArrayList<>();
+        mExecutor = new RangeQueryExecutor<>(null, new RangeSeekBar.RangeQuery<String>() {
+            @Override
+            public String query(double min, double max) {
+                return (int) min + "-" + (int) max;
+            }
+        }, new RangeSeekBar.OnRangeQueryResultListener<String>() {
+            @Override
+            public void onRangeQueryResult(RangeSeekBar view, double min, double max, String result) {
+                mResults.add(result);
+            }
+        }, mBackground, mMain);
+    }
+
+    @Test
+    public void waitingRangesAreReplaced() {
+        mExecutor.submit(0, 10);
+        mExecutor.submit(0, 20);
+        mExecutor.submit(0, 30);
+        assertEquals(1, mBackground.size());
+        assertEquals(1, mExecutor.getQueueDepth());
+
+        mBackground.runAll();
+        mMain.runAll();
+        assertEquals(1, mResults.size());
+        assertEquals("0-30", mResults.get(0));
+        assertEquals(2, mExecutor.getDroppedCount());
+        assertEquals(1, mExecutor.getCompletedCount());
+        assertEquals(0, mExecutor.getQueueDepth());
+    }
+
+    @Test
+    public void supersededResultIsDropped() {
+        mExecutor.submit(0, 10);
+        mBackground.runAll();
+        // the result is on its way to the main thread when the range changes
+        mExecutor.submit(0, 20);
+        mMain.runAll();
+        assertEquals(0, mResults.size());
+
+        mBackground.runAll();
+        mMain.runAll();
+        assertEquals(1, mResults.size());
+        assertEquals("0-20", mResults.get(0));
+        assertEquals(1, mExecutor.getDroppedCount());
+    }
+
+    @Test
+    public void cancelDropsEverything() {
+        mExecutor.submit(0, 10);
+        mExecutor.cancel();
+        mBackground.runAll();
+        mMain.runAll();
+        assertEquals(0, mResults.size());
+        assertEquals(1, mExecutor.getDroppedCount());
+        assertEquals(0, mExecutor.getQueueDepth());
+
+        mExecutor.submit(5, 10);
+        mBackground.runAll();
+        mMain.runAll();
+        assertEquals("5-10", mResults.get(0));
+    }
+
+    private static class QueueExecutor implements Executor {
+        private final ArrayDeque<Runnable> mQueue = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            mQueue.add(command);
+        }
+
+        int size() {
+            return mQueue.size();
+        }
+
+        void runAll() {
+            while (!mQueue.isEmpty()) {
+                mQueue.poll().run();
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.ielse.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RangeScaleTest {
+
+    private static void assertRoundTrip(RangeScale scale, double min, double max) {
+        double previous = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i <= 100; i++) {
+            double position = i / 100.0;
+            double value = scale.valueAt(position, min, max);
+            assertTrue(value > previous);
+            assertEquals(position, scale.positionOf(value, min, max), 1e-9);
+            previous = value;
+        }
+        assertEquals(min, scale.valueAt(0, min, max), 1e-6);
+        assertEquals(max, scale.valueAt(1, min, max), 1e-6);
+    }
+
+    @Test
+    public void linear() {
+        assertRoundTrip(RangeScale.linear(), -50, 50);
+        assertEquals(0, RangeScale.linear().valueAt(0.5, -50, 50), 0);
+    }
+
+    @Test
+    public void logStartsAtZero() {
+        assertRoundTrip(RangeScale.log(), 0, 1000000);
+        // the middle of the track is about sqrt(1M)
+        assertEquals(1000, RangeScale.log().valueAt(0.5, 0, 1000000), 1);
+    }
+
+    @Test
+    public void power() {
+        assertRoundTrip(RangeScale.power(2), 0, 100);
+        assertEquals(25, RangeScale.power(2).valueAt(0.5, 0, 100), 1e-9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void powerRejectsZeroExponent() {
+        RangeScale.power(0);
+    }
+
+    @Test
+    public void piecewise() {
+        RangeScale scale = RangeScale.piecewise(new float[]{0, 0.5f, 1}, new float[]{0, 1000, 1000000});
+        assertRoundTrip(scale, 0, 1000000);
+        assertEquals(500, scale.valueAt(0.25, 0, 1000000), 1e-6);
+        assertEquals(0.75, scale.positionOf(500500, 0, 1000000), 1e-9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void piecewiseRejectsDescendingValues() {
+        RangeScale.piecewise(new float[]{0, 0.5f, 1}, new float[]{0, 1000, 10});
+    }
+}
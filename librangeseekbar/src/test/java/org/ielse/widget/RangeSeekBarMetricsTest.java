@@ -0,0 +1,53 @@
+package org.ielse.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class RangeSeekBarMetricsTest {
+
+    @Test
+    public void recordsDrawTimes() {
+        RangeSeekBarMetrics metrics = new RangeSeekBarMetrics();
+        assertEquals(0, metrics.getAverageDrawTimeNanos());
+        metrics.recordDraw(100);
+        metrics.recordDraw(300);
+        assertEquals(2, metrics.getDrawCount());
+        assertEquals(400, metrics.getDrawTimeNanos());
+        assertEquals(200, metrics.getAverageDrawTimeNanos());
+        assertEquals(300, metrics.getMaxDrawTimeNanos());
+    }
+
+    @Test
+    public void separatesPartialAndFullInvalidations() {
+        RangeSeekBarMetrics metrics = new RangeSeekBarMetrics();
+        metrics.recordInvalidate(true);
+        metrics.recordInvalidate(true);
+        metrics.recordInvalidate(false);
+        assertEquals(2, metrics.getPartialInvalidateCount());
+        assertEquals(1, metrics.getFullInvalidateCount());
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        RangeSeekBarMetrics metrics = new RangeSeekBarMetrics();
+        metrics.recordDraw(10);
+        metrics.recordTouchEvent(3);
+        metrics.recordDispatchCoalesced();
+        metrics.recordListenerCall(5);
+        metrics.recordInvalidate(false);
+        metrics.recordBitmapDecode(7);
+        assertEquals(3, metrics.getTouchSamplesCoalesced());
+        metrics.reset();
+        assertEquals(0, metrics.getDrawCount());
+        assertEquals(0, metrics.getMaxDrawTimeNanos());
+        assertEquals(0, metrics.getTouchEventCount());
+        assertEquals(0, metrics.getTouchSamplesCoalesced());
+        assertEquals(0, metrics.getDispatchesCoalesced());
+        assertEquals(0, metrics.getListenerCallCount());
+        assertEquals(0, metrics.getListenerTimeNanos());
+        assertEquals(0, metrics.getFullInvalidateCount());
+        assertEquals(0, metrics.getBitmapDecodeCount());
+        assertEquals(0, metrics.getBitmapDecodeTimeNanos());
+    }
+}
@@ -0,0 +1,39 @@
+package org.ielse.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RangeSeekBarStateTest {
+
+    @Test
+    public void precomputesPercents() {
+        RangeModel model = new RangeModel(0, 100, 0, 1);
+        RangeSeekBarState state = new RangeSeekBarState(model, 25, 75);
+        assertSame(model, state.getModel());
+        assertEquals(0.25f, state.getMinPercent(), 1e-6f);
+        assertEquals(0.75f, state.getMaxPercent(), 1e-6f);
+        assertFalse(state.hasColors());
+    }
+
+    @Test
+    public void keepsColors() {
+        RangeSeekBarState state = new RangeSeekBarState(new RangeModel(0, 100, 0, 1), 0, 100,
+                0xFFD7D7D7, 0xFF00B4FF, 0xFF0E83FF);
+        assertTrue(state.hasColors());
+        assertEquals(0xFF00B4FF, state.getShadeStartColor());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void validatesOnCreation() {
+        new RangeSeekBarState(new RangeModel(0, 100, 0, 1), 0, 101);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSwappedValues() {
+        new RangeSeekBarState(new RangeModel(0, 100, 0, 1), 60, 40);
+    }
+}
@@ -0,0 +1,84 @@
+package org.ielse.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class RefCountLruCacheTest {
+
+    private static RefCountLruCache<byte[]> newCache(long maxBytes) {
+        return new RefCountLruCache<byte[]>(maxBytes) {
+            @Override
+            protected int sizeOf(byte[] value) {
+                return value.length;
+            }
+        };
+    }
+
+    @Test
+    public void acquire_countsHitsAndMisses() throws Exception {
+        RefCountLruCache<byte[]> cache = newCache(100);
+        assertNull(cache.acquire(1));
+        byte[] value = cache.put(1, new byte[10]);
+        assertSame(value, cache.acquire(1));
+        assertSame(value, cache.acquire(1));
+        assertEquals(1, cache.missCount());
+        assertEquals(2, cache.hitCount());
+        assertEquals(3, cache.refCount(1));
+        assertEquals(10, cache.bytes());
+    }
+
+    @Test
+    public void acquireIfPresent_leavesTheMissToTheDecodingAcquire() throws Exception {
+        RefCountLruCache<byte[]> cache = newCache(100);
+        // async loading: a cached lookup on the main thread, then the decode on the worker
+        assertNull(cache.acquireIfPresent(1));
+        assertNull(cache.acquire(1));
+        byte[] value = cache.put(1, new byte[10]);
+        assertEquals(1, cache.missCount());
+        assertSame(value, cache.acquireIfPresent(1));
+        assertEquals(1, cache.hitCount());
+        assertEquals(2, cache.refCount(1));
+    }
+
+    @Test
+    public void put_concurrentInsertReturnsExisting() throws Exception {
+        RefCountLruCache<byte[]> cache = newCache(100);
+        byte[] first = cache.put(1, new byte[10]);
+        assertSame(first, cache.put(1, new byte[10]));
+        assertEquals(2, cache.refCount(1));
+        assertEquals(10, cache.bytes());
+    }
+
+    @Test
+    public void referencedEntries_areNeverEvicted() throws Exception {
+        RefCountLruCache<byte[]> cache = newCache(15);
+        cache.put(1, new byte[10]);
+        cache.put(2, new byte[10]);
+        assertEquals(2, cache.size());
+        assertEquals(20, cache.bytes());
+
+        cache.release(1);
+        assertEquals(1, cache.size());
+        assertEquals(10, cache.bytes());
+        assertEquals(1, cache.evictionCount());
+        assertNull(cache.acquire(1));
+    }
+
+    @Test
+    public void releasedEntries_stayCachedWithinBudget() throws Exception {
+        RefCountLruCache<byte[]> cache = newCache(100);
+        byte[] value = cache.put(1, new byte[10]);
+        cache.release(1);
+        cache.release(1);
+        assertEquals(0, cache.refCount(1));
+        assertSame(value, cache.acquire(1));
+
+        cache.release(1);
+        cache.trimToSize(0);
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.bytes());
+    }
+}
@@ -0,0 +1,69 @@
+package org.ielse.widget;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+
+public class RenderUtilsTest {
+
+    @Test
+    public void appendInt_writesDecimal() throws Exception {
+        char[] buf = new char[16];
+        assertEquals("0", new String(buf, 0, RenderUtils.appendInt(buf, 0, 0)));
+        assertEquals("1234", new String(buf, 0, RenderUtils.appendInt(buf, 0, 1234)));
+        assertEquals("-56", new String(buf, 0, RenderUtils.appendInt(buf, 0, -56)));
+        assertEquals(String.valueOf(Integer.MIN_VALUE),
+                new String(buf, 0, RenderUtils.appendInt(buf, 0, Integer.MIN_VALUE)));
+    }
+
+    @Test
+    public void appendLong_writesDecimal() throws Exception {
+        char[] buf = new char[24];
+        assertEquals("1500000000123", new String(buf, 0, RenderUtils.appendLong(buf, 0, 1500000000123L)));
+        assertEquals(String.valueOf(Long.MAX_VALUE),
+                new String(buf, 0, RenderUtils.appendLong(buf, 0, Long.MAX_VALUE)));
+        assertEquals(String.valueOf(Long.MIN_VALUE),
+                new String(buf, 0, RenderUtils.appendLong(buf, 0, Long.MIN_VALUE)));
+    }
+
+    @Test
+    public void blendColor_interpolatesChannels() throws Exception {
+        assertEquals(0xFFFFFFFF, RenderUtils.blendColor(0, 0xFFFFFFFF, 0xFFE7E7E7));
+        assertEquals(0xFFE7E7E7, RenderUtils.blendColor(1, 0xFFFFFFFF, 0xFFE7E7E7));
+        assertEquals(0x7F7F0000, RenderUtils.blendColor(0.5f, 0x00000000, 0xFFFF0000));
+    }
+
+    /**
+     * Only the helpers used by the draw path; the draw path itself is checked on a device by
+     * RangeSeekBarTest#testDrawDoesNotAllocate in androidTest.
+     */
+    @Test
+    public void helpers_doNotAllocate() throws Exception {
+        char[] buf = new char[16];
+        int sink = 0;
+        // warm up
+        for (int i = 0; i < 20000; i++) {
+            sink += callHelpers(buf, i);
+        }
+        long before = allocatedBytes();
+        long overhead = allocatedBytes() - before;
+        before = allocatedBytes();
+        for (int i = 0; i < 500; i++) {
+            sink += callHelpers(buf, i * 37);
+        }
+        long allocated = allocatedBytes() - before - overhead;
+        assertEquals("bytes allocated over 500 helper calls (sink " + sink + ")", 0, allocated);
+    }
+
+    private static int callHelpers(char[] buf, int value) {
+        int length = RenderUtils.appendInt(buf, 0, value);
+        return length + RenderUtils.blendColor(value / 1000f, 0xFFFFFFFF, 0xFFE7E7E7);
+    }
+
+    static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
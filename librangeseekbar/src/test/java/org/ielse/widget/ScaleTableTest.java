@@ -0,0 +1,51 @@
+package org.ielse.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ScaleTableTest {
+
+    @Test
+    public void interpolatesCloseToTheScale() {
+        ScaleTable table = new ScaleTable();
+        table.build(RangeScale.log(), 0, 1000000, 1001);
+        for (int i = 0; i <= 1000; i++) {
+            float position = i / 1000f + 0.0003f;
+            double exact = RangeScale.log().valueAt(Math.min(position, 1), 0, 1000000);
+            // one sample per pixel: the error stays within the step of the steepest pixel
+            assertEquals(exact, table.valueAt(position), exact * 0.01 + 0.01);
+        }
+    }
+
+    @Test
+    public void endsAreExact() {
+        ScaleTable table = new ScaleTable();
+        table.build(RangeScale.power(3), 10, 20, 5);
+        assertEquals(10, table.valueAt(0), 0);
+        assertEquals(20, table.valueAt(1), 0);
+        assertEquals(10, table.valueAt(-1), 0);
+        assertEquals(20, table.valueAt(2), 0);
+    }
+
+    @Test
+    public void positionOfInvertsValueAt() {
+        ScaleTable table = new ScaleTable();
+        table.build(RangeScale.power(2), 0, 100, 201);
+        for (int i = 0; i <= 100; i++) {
+            float position = i / 100f;
+            assertEquals(position, table.positionOf(table.valueAt(position)), 1e-4);
+        }
+        assertEquals(0, table.positionOf(-1), 0);
+        assertEquals(1, table.positionOf(101), 0);
+    }
+
+    @Test
+    public void reusesLargerArray() {
+        ScaleTable table = new ScaleTable();
+        table.build(RangeScale.linear(), 0, 10, 11);
+        table.build(RangeScale.linear(), 0, 10, 3);
+        assertEquals(3, table.size());
+        assertEquals(5, table.valueAt(0.5f), 1e-6);
+    }
+}
@@ -0,0 +1,65 @@
+package org.ielse.widget;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class SortedDatasetTest {
+
+    @Test
+    public void boundsIncludeBothEnds() {
+        SortedDataset dataset = SortedDataset.of(new float[]{1, 2, 2, 3, 5}, true);
+        assertEquals(1, dataset.lowerBound(2.0));
+        assertEquals(3, dataset.upperBound(2.0));
+        assertEquals(0, dataset.lowerBound(-1.0));
+        assertEquals(5, dataset.upperBound(5.0));
+        assertEquals(5, dataset.lowerBound(6.0));
+        assertEquals(0, dataset.upperBound(0.0));
+    }
+
+    @Test
+    public void sortsACopyWhenAsked() {
+        float[] values = {3, 1, 2};
+        SortedDataset dataset = SortedDataset.of(values, false);
+        assertEquals(3, values[0], 0);
+        assertEquals(1, dataset.lowerBound(2.0));
+    }
+
+    @Test
+    public void excludesNaN() {
+        SortedDataset dataset = SortedDataset.of(new float[]{Float.NaN, 1, 2}, false);
+        assertEquals(3, dataset.size());
+        assertEquals(2, dataset.upperBound(Double.MAX_VALUE) - dataset.lowerBound(-Double.MAX_VALUE));
+    }
+
+    @Test
+    public void longBoundsAreExact() {
+        long base = 1500000000000123L;
+        SortedDataset dataset = SortedDataset.of(new long[]{base, base + 1, base + 2}, true);
+        assertEquals(1, dataset.lowerBound(base + 1));
+        assertEquals(2, dataset.upperBound(base + 1));
+    }
+
+    @Test
+    public void matchesLinearScan() {
+        Random random = new Random(7);
+        long[] values = new long[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(200);
+        }
+        SortedDataset dataset = SortedDataset.of(values, false);
+        for (int i = 0; i < 200; i++) {
+            long min = random.nextInt(220) - 10;
+            long max = min + random.nextInt(50);
+            int count = 0;
+            for (long value : values) {
+                if (value >= min && value <= max) {
+                    count++;
+                }
+            }
+            assertEquals(count, dataset.upperBound(max) - dataset.lowerBound(min));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.ielse.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ThumbAtlasTest {
+
+    @Test
+    public void frameIndexCoversAllPressStates() {
+        assertEquals(0, ThumbAtlas.frameIndex(0));
+        assertEquals(5, ThumbAtlas.frameIndex(0.5f));
+        assertEquals(ThumbAtlas.FRAMES - 1, ThumbAtlas.frameIndex(1));
+        // the touch ramp steps by 0.1, every step gets its own frame
+        for (int i = 0; i < ThumbAtlas.FRAMES; i++) {
+            assertEquals(i, ThumbAtlas.frameIndex(i * 0.1f));
+        }
+    }
+
+    @Test
+    public void frameContainsPressedThumb() {
+        for (int height = 10; height < 400; height += 7) {
+            int width = (int) (height * 0.8f);
+            int radius = (int) (width * 0.5f);
+            int top = ThumbAtlas.frameTop(width, height);
+            int bottom = top + ThumbAtlas.frameHeight(width);
+            int left = -ThumbAtlas.padding(width);
+            int right = left + ThumbAtlas.frameWidth(width);
+            // shadow shifted down by radius / 4 and scaled by 1.1 around the center
+            float pressed = radius * 1.1f;
+            assertTrue(top <= height - radius);
+            assertTrue(bottom >= height + radius * 0.25f + pressed);
+            assertTrue(left <= width / 2 - pressed);
+            assertTrue(right >= width / 2 + pressed);
+        }
+    }
+
+    @Test
+    public void keySeparatesWidthAndHeight() {
+        assertTrue(ThumbAtlas.key(1, 2) != ThumbAtlas.key(2, 1));
+    }
+}
@@ -0,0 +1,66 @@
+package org.ielse.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ThumbPositionTest {
+
+    private static ThumbPosition[] layout(boolean cellsMode, int count, int width) {
+        ThumbPosition[] thumbs = new ThumbPosition[count];
+        for (int i = 0; i < count; i++) {
+            thumbs[i] = new ThumbPosition();
+            thumbs[i].mPosition = i;
+            thumbs[i].mWidth = width;
+        }
+        for (ThumbPosition thumb : thumbs) {
+            thumb.layout(80, 1000, cellsMode, width, count - 1);
+        }
+        return thumbs;
+    }
+
+    @Test
+    public void continuousMode_keepsTheThumbsAThumbWidthApart() throws Exception {
+        ThumbPosition[] thumbs = layout(false, 3, 40);
+        assertEquals(80, thumbs[0].mOrigin);
+        assertEquals(100, thumbs[1].mOrigin);
+        assertEquals(120, thumbs[2].mOrigin);
+        assertEquals(960, thumbs[2].mTravel);
+        thumbs[2].mCurrPercent = 1;
+        assertEquals(1080f, thumbs[2].center(), 0);
+    }
+
+    @Test
+    public void nearest_takesTheStackedThumbThatCanMove() throws Exception {
+        ThumbPosition[] thumbs = layout(true, 3, 40);
+        for (ThumbPosition thumb : thumbs) {
+            thumb.mCurrPercent = 1;
+        }
+        assertEquals(0, ThumbPosition.nearest(thumbs, 1080));
+        for (ThumbPosition thumb : thumbs) {
+            thumb.mCurrPercent = 0.5f;
+        }
+        assertEquals(2, ThumbPosition.nearest(thumbs, 580));
+        assertEquals(2, ThumbPosition.nearest(thumbs, 2000));
+    }
+
+    @Test
+    public void slide_isTheInverseOfCenter() throws Exception {
+        ThumbPosition[] thumbs = layout(false, 2, 40);
+        thumbs[1].mCurrPercent = 1;
+        RangeModel model = new RangeModel(0, 100, 0, 1);
+        float percent = ThumbPosition.slide(model, thumbs, 1, 600);
+        thumbs[1].mCurrPercent = percent;
+        assertEquals(600f, thumbs[1].center(), 1e-3f);
+    }
+
+    @Test
+    public void slide_snapsToCellsAndKeepsTheReserve() throws Exception {
+        ThumbPosition[] thumbs = layout(true, 2, 40);
+        thumbs[1].mCurrPercent = 0.5f;
+        // 10 cells, a reserve of 2 cells
+        RangeModel model = new RangeModel(0, 100, 20, 10);
+        assertEquals(0.1f, ThumbPosition.slide(model, thumbs, 0, 80 + 120), 1e-6f);
+        assertEquals(0.3f, ThumbPosition.slide(model, thumbs, 0, 80 + 470), 1e-6f);
+    }
+}
@@ -0,0 +1,37 @@
+package org.ielse.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TouchPredictorTest {
+
+    @Test
+    public void predict_extrapolatesConstantVelocity() throws Exception {
+        TouchPredictor predictor = new TouchPredictor();
+        for (int t = 0; t <= 16; t += 4) {
+            predictor.addSample(t, 100 + t * 2);
+        }
+        assertEquals(132 + 16, predictor.predict(8), 0.001);
+    }
+
+    @Test
+    public void predict_ignoresSamplesOutsideWindow() throws Exception {
+        TouchPredictor predictor = new TouchPredictor();
+        predictor.addSample(0, 0);
+        predictor.addSample(100, 500);
+        predictor.addSample(108, 500);
+        assertEquals(500, predictor.predict(8), 0.001);
+    }
+
+    @Test
+    public void predict_withoutHistoryReturnsLatest() throws Exception {
+        TouchPredictor predictor = new TouchPredictor();
+        predictor.addSample(10, 42);
+        predictor.addSample(10, 43);
+        assertEquals(43, predictor.predict(8), 0.001);
+        predictor.reset();
+        predictor.addSample(20, 7);
+        assertEquals(7, predictor.predict(8), 0.001);
+    }
+}